@@ -0,0 +1,38 @@
+-- Query shapes produced by ShipController for common UI searches; the
+-- column lists are trimmed, the WHERE/ORDER BY/LIMIT parts are verbatim.
+
+-- GET /rest/ships (defaults: order=ID, pageSize=3)
+EXPLAIN ANALYZE
+SELECT * FROM ship ORDER BY id LIMIT 3;
+
+-- GET /rest/ships?shipType=MILITARY&isUsed=false&order=SPEED&pageNumber=100
+EXPLAIN ANALYZE
+SELECT * FROM ship WHERE shipType = 'MILITARY' AND isUsed = 0
+ORDER BY speed, id LIMIT 300, 3;
+
+-- GET /rest/ships?shipType=TRANSPORT&minSpeed=0.3&maxSpeed=0.6&order=RATING
+EXPLAIN ANALYZE
+SELECT * FROM ship WHERE shipType = 'TRANSPORT' AND speed BETWEEN 0.3 AND 0.6
+ORDER BY rating, id LIMIT 3;
+
+-- GET /rest/ships?after=...3000&before=...3001&order=DATE
+EXPLAIN ANALYZE
+SELECT * FROM ship WHERE prodDate BETWEEN '3000-01-01' AND '3001-01-01'
+ORDER BY prodDate, id LIMIT 3;
+
+-- GET /rest/ships?minRating=20&order=RATING (keyset page after rating 25.0, id 1000)
+EXPLAIN ANALYZE
+SELECT * FROM ship WHERE rating >= 20 AND (rating > 25.0 OR rating = 25.0 AND id > 1000)
+ORDER BY rating, id LIMIT 3;
+
+-- GET /rest/ships/count?minCrewSize=9000&maxCrewSize=9999
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM ship WHERE crewSize BETWEEN 9000 AND 9999;
+
+-- GET /rest/ships/count?shipType=MERCHANT&isUsed=true&after=...3010
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM ship WHERE shipType = 'MERCHANT' AND isUsed = 1 AND prodDate >= '3010-01-01';
+
+-- GET /rest/ships?name=ip (substring match: expected to stay a scan)
+EXPLAIN ANALYZE
+SELECT * FROM ship WHERE name LIKE '%ip%' ORDER BY id LIMIT 3;
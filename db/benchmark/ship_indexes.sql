@@ -0,0 +1,67 @@
+-- Before/after benchmark for db/upgrade/01_ship_indexes.sql (MySQL 8.0.18+).
+--
+-- Seeds a throw-away schema with 1M random ships, runs the queries that
+-- ShipController generates for typical filter combinations with EXPLAIN
+-- ANALYZE (plan plus actual time), adds the indexes and runs them again.
+--
+--   mysql -uroot -p < db/benchmark/ship_indexes.sql > ship_indexes.txt
+--
+-- Compare the "actual time" of the top node and the access type
+-- (Table scan vs Index range scan / Index lookup) between the two halves.
+
+DROP DATABASE IF EXISTS cosmoport_bench;
+CREATE DATABASE cosmoport_bench COLLATE utf8_general_ci;
+USE cosmoport_bench;
+
+CREATE TABLE ship
+(
+    id       BIGINT(20)  NOT NULL AUTO_INCREMENT,
+    name     VARCHAR(50) NULL,
+    planet   VARCHAR(50) NULL,
+    shipType VARCHAR(9)  NULL,
+    prodDate date        NULL,
+    isUsed   BIT(1)      NULL,
+    speed    DOUBLE      NULL,
+    crewSize INT(4)      NULL,
+    rating   DOUBLE      NULL,
+    PRIMARY KEY (id)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARACTER SET = utf8;
+
+-- 10^6 rows from the cross product of six digit tables
+CREATE TEMPORARY TABLE digit (d INT NOT NULL PRIMARY KEY);
+INSERT INTO digit VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize)
+SELECT CONCAT('Ship ', n),
+       ELT(1 + n % 8, 'Mercury', 'Venus', 'Earth', 'Mars', 'Jupiter', 'Saturn', 'Uranus', 'Neptune'),
+       ELT(1 + FLOOR(RAND(n) * 3), 'TRANSPORT', 'MILITARY', 'MERCHANT'),
+       MAKEDATE(2800 + FLOOR(RAND(n + 1) * 219), 1),
+       RAND(n + 2) < 0.5,
+       ROUND(0.01 + RAND(n + 3) * 0.98, 2),
+       1 + FLOOR(RAND(n + 4) * 9999)
+FROM (SELECT a.d + 10 * b.d + 100 * c.d + 1000 * e.d + 10000 * f.d + 100000 * g.d AS n
+      FROM digit a, digit b, digit c, digit e, digit f, digit g) numbers;
+
+-- same formula as ShipService.calculateRating
+UPDATE ship
+SET rating = FLOOR(80 * speed * IF(isUsed, 0.5, 1) / (3019 - YEAR(prodDate) + 1) * 100 + 0.5) / 100;
+
+ANALYZE TABLE ship;
+
+SELECT '==================== BEFORE ====================' AS phase;
+SOURCE db/benchmark/ship_index_queries.sql
+
+ALTER TABLE ship
+    ADD INDEX idx_ship_speed (speed),
+    ADD INDEX idx_ship_date (prodDate),
+    ADD INDEX idx_ship_rating (rating),
+    ADD INDEX idx_ship_crew_size (crewSize);
+
+ANALYZE TABLE ship;
+
+SELECT '==================== AFTER =====================' AS phase;
+SOURCE db/benchmark/ship_index_queries.sql
+
+DROP DATABASE cosmoport_bench;
@@ -0,0 +1,34 @@
+-- Manual upgrade script, not run by the application: apply the scripts in
+-- db/upgrade in the order of their number to a cosmoport database created
+-- from an older init.sql. New databases get the same schema from init.sql.
+--
+--   mysql -uroot -p < db/upgrade/01_ship_indexes.sql
+--
+-- Secondary indexes for the filters and orders accepted by GET /rest/ships
+-- and GET /rest/ships/count.
+--
+-- The single-column indexes serve the range filters (after/before,
+-- min/maxSpeed, min/maxCrewSize, min/maxRating) and the sort orders (SPEED,
+-- DATE, RATING). InnoDB appends the primary key to every secondary index, so
+-- each one also covers the id tie-breaker used by the ORDER BY and by the
+-- keyset cursor, and ORDER BY ... LIMIT stops after one page instead of
+-- sorting every match.
+--
+-- shipType and isUsed get no index: with three types and two flags every
+-- combination still matches about a sixth of the table, so walking one of
+-- the order indexes and skipping the other rows reaches the end of a page
+-- about as fast as a composite (shipType, isUsed, ...) index would, without
+-- three more indexes to maintain on every write.
+--
+-- name and planet are filtered with a substring match (LIKE '%x%'), which
+-- neither a B-tree nor a prefix index can serve, so they get no index here.
+
+USE cosmoport;
+
+ALTER TABLE ship
+    ADD INDEX idx_ship_speed (speed),
+    ADD INDEX idx_ship_date (prodDate),
+    ADD INDEX idx_ship_rating (rating),
+    ADD INDEX idx_ship_crew_size (crewSize),
+    ALGORITHM = INPLACE,
+    LOCK = NONE;
@@ -0,0 +1,14 @@
+-- Manual upgrade script, not run by the application: apply the scripts in
+-- db/upgrade in the order of their number to a cosmoport database created
+-- from an older init.sql. New databases get the same schema from init.sql.
+--
+--   mysql -uroot -p < db/upgrade/02_ship_version.sql
+--
+-- Optimistic locking for ship updates. Hibernate checks and increments the
+-- column on every entity update (Ship.version); the JDBC paths (PATCH,
+-- bulk update, conditional delete) do the same in their statements.
+
+USE cosmoport;
+
+ALTER TABLE ship
+    ADD COLUMN version BIGINT(20) NOT NULL DEFAULT 0;
@@ -0,0 +1,21 @@
+-- Manual upgrade script, not run by the application: apply the scripts in
+-- db/upgrade in the order of their number to a cosmoport database created
+-- from an older init.sql. New databases get the same schema from init.sql.
+--
+--   mysql -uroot -p < db/upgrade/03_rating_recalculation.sql
+--
+-- Checkpoint of the rating recalculation job (RatingRecalculationJob), one row
+-- per configured rating.current-year. The job commits last_id together with
+-- each chunk of rating updates, so an interrupted run resumes after the last
+-- committed ship.
+
+USE cosmoport;
+
+CREATE TABLE rating_recalculation
+(
+    current_year INT(4)     NOT NULL,
+    last_id      BIGINT(20) NOT NULL,
+    rows_done    BIGINT(20) NOT NULL,
+    finished     BIT(1)     NOT NULL,
+    PRIMARY KEY (current_year)
+);
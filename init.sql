@@ -6,6 +6,7 @@ CREATE DATABASE IF NOT EXISTS test
 USE cosmoport;
 
 DROP TABLE IF EXISTS ship;
+DROP TABLE IF EXISTS rating_recalculation;
 
 CREATE TABLE ship
 (
@@ -18,7 +19,23 @@ CREATE TABLE ship
     speed    DOUBLE      NULL,
     crewSize INT(4)      NULL,
     rating   DOUBLE      NULL,
-    PRIMARY KEY (id)
+    version  BIGINT(20)  NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    INDEX idx_ship_speed (speed),
+    INDEX idx_ship_date (prodDate),
+    INDEX idx_ship_rating (rating),
+    INDEX idx_ship_crew_size (crewSize)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARACTER SET = utf8;
+
+CREATE TABLE rating_recalculation
+(
+    current_year INT(4)     NOT NULL,
+    last_id      BIGINT(20) NOT NULL,
+    rows_done    BIGINT(20) NOT NULL,
+    finished     BIT(1)     NOT NULL,
+    PRIMARY KEY (current_year)
 )
     ENGINE = InnoDB
     DEFAULT CHARACTER SET = utf8;
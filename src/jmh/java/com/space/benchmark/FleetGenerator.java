@@ -0,0 +1,52 @@
+package com.space.benchmark;
+
+import com.space.model.RatingCalculator;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded random ships within the limits a create request accepts, named and
+ * placed like the ships of test.sql so the substring filters find some.
+ */
+final class FleetGenerator {
+
+    private static final String[] NAMES = {"Orion", "Daedalus", "Eagle Transporter", "F-302 Mongoose",
+            "Excalibur", "Explorer", "Icarus", "Hermes", "Odyssey", "Orbit Jet", "Aries", "Hunter",
+            "Serenity", "Scorpio E-X", "Mark IX Hawk", "Excelsior", "Amaterasu", "USS Cygnus", "Argonaut",
+            "Avalon", "Arcadia", "Red Dwarf", "Derelict", "Terra"};
+    private static final String[] PLANETS = {"Mercury", "Venus", "Earth", "Mars", "Jupiter", "Saturn",
+            "Uranus", "Neptune"};
+
+    private FleetGenerator() {
+    }
+
+    /**
+     * @param withIds number the ships 1..size, as the database would; otherwise the ids are {@code null}
+     */
+    static List<Ship> generate(int size, long seed, boolean withIds, RatingCalculator calculator) {
+        Random random = new Random(seed);
+        Calendar calendar = Calendar.getInstance();
+        ShipType[] shipTypes = ShipType.values();
+        List<Ship> ships = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            calendar.clear();
+            calendar.set(2800 + random.nextInt(calculator.getCurrentYear() - 2800 + 1), random.nextInt(12),
+                    1 + random.nextInt(28));
+            boolean used = random.nextBoolean();
+            double speed = (1 + random.nextInt(99)) / 100D;
+            long prodDate = calendar.getTimeInMillis();
+            ships.add(new Ship(withIds ? (long) i + 1 : null,
+                    NAMES[random.nextInt(NAMES.length)] + " " + (1 + random.nextInt(999)),
+                    PLANETS[random.nextInt(PLANETS.length)],
+                    shipTypes[random.nextInt(shipTypes.length)],
+                    new java.util.Date(prodDate), used, speed, 1 + random.nextInt(9999),
+                    calculator.rating(speed, used, prodDate)));
+        }
+        return ships;
+    }
+}
@@ -0,0 +1,91 @@
+package com.space.benchmark;
+
+import com.space.metrics.MetricsRegistry;
+import com.space.model.RatingCalculator;
+import com.space.service.ShipService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The rating of one ship: the old {@code Calendar} code against {@link RatingCalculator},
+ * directly and through {@link ShipService#calculateRating}.
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="RatingBenchmark -prof gc"}
+ * to see the allocation rate as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatingBenchmark {
+
+    private static final int SHIPS = 1024;
+    private static final RatingCalculator CALCULATOR = new RatingCalculator(3019);
+    private static final ShipService SHIP_SERVICE = new ShipService(null, null, null, null, CALCULATOR,
+            new MetricsRegistry(), 0);
+
+    private final double[] speeds = new double[SHIPS];
+    private final boolean[] used = new boolean[SHIPS];
+    private final long[] prodDates = new long[SHIPS];
+    private final Date[] prodDateObjects = new Date[SHIPS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Calendar calendar = Calendar.getInstance();
+        for (int i = 0; i < SHIPS; i++) {
+            calendar.set(2800 + random.nextInt(219), random.nextInt(12), 1 + random.nextInt(28));
+            speeds[i] = (1 + random.nextInt(99)) / 100D;
+            used[i] = random.nextBoolean();
+            prodDates[i] = calendar.getTimeInMillis();
+            prodDateObjects[i] = new Date(prodDates[i]);
+        }
+    }
+
+    @Benchmark
+    public Double calendarRating() {
+        int i = nextShip();
+        return calendarRating(speeds[i], used[i], prodDateObjects[i]);
+    }
+
+    @Benchmark
+    public double ratingCalculator() {
+        int i = nextShip();
+        return CALCULATOR.rating(speeds[i], used[i], prodDates[i]);
+    }
+
+    @Benchmark
+    public Double shipServiceRating() {
+        int i = nextShip();
+        return SHIP_SERVICE.calculateRating(speeds[i], used[i], prodDateObjects[i]);
+    }
+
+    private int nextShip() {
+        next = (next + 1) & (SHIPS - 1);
+        return next;
+    }
+
+    private static Double calendarRating(Double speed, boolean isUsed, Date prodDate) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(prodDate);
+        Integer prodYear = calendar.get(Calendar.YEAR);
+        Double k = isUsed ? 0.5 : 1;
+        Double rating = 80 * speed * k / (3019 - prodYear + 1);
+        return Math.round(rating * 100) / 100D;
+    }
+}
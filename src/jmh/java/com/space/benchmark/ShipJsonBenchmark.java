@@ -0,0 +1,75 @@
+package com.space.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.space.model.RatingCalculator;
+import com.space.model.Ship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a {@code List<Ship>} as the REST message converter of WebConfig
+ * writes a response body, into a sink that only counts the bytes.
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ShipJsonBenchmark -prof gc"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShipJsonBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int fleetSize;
+
+    private List<Ship> ships;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        ships = FleetGenerator.generate(fleetSize, 42, true, new RatingCalculator(3019));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Ship.class));
+    }
+
+    @Benchmark
+    public long serialize() throws IOException {
+        ByteCounter counter = new ByteCounter();
+        writer.writeValue(counter, ships);
+        return counter.bytes;
+    }
+
+    private static final class ByteCounter extends OutputStream {
+
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.space.benchmark;
+
+import com.space.config.AppConfig;
+import com.space.controller.ShipOrder;
+import com.space.metrics.MetricsRegistry;
+import com.space.model.RatingCalculator;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipJdbcRepository;
+import com.space.repository.ShipRepository;
+import com.space.service.ShipService;
+import com.space.service.index.FleetIndex;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The list and count paths of {@link ShipService} over generated fleets.
+ * <ul>
+ * <li>{@code stub}: the fleet index answers the filter, sort and page in the JVM,
+ * and the ships of the page come from an in-memory stub of {@link ShipRepository}.</li>
+ * <li>{@code h2}: the "dev" context of the functional tests, with the fleet in
+ * embedded H2. The query cache is evicted before every call, so each call
+ * reaches the database.</li>
+ * </ul>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ShipServiceBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShipServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int INSERT_BATCH = 10_000;
+    private static final RatingCalculator CALCULATOR = new RatingCalculator(3019);
+
+    @Param({"1000", "100000", "1000000"})
+    public int fleetSize;
+
+    @Param({"stub", "h2"})
+    public String backend;
+
+    private ShipService shipService;
+    private FleetIndex fleetIndex;
+    private AnnotationConfigApplicationContext context;
+    private SessionFactory sessionFactory;
+    private int deepPageNumber;
+
+    @Setup
+    public void setUp() {
+        List<Ship> fleet = FleetGenerator.generate(fleetSize, 42, true, CALCULATOR);
+        if ("h2".equals(backend)) {
+            setUpH2(fleet);
+        } else {
+            setUpStub(fleet);
+        }
+        // about half of the fleet is at least 0.5 fast, so this page is in the middle of the matches
+        deepPageNumber = fleetSize / 4 / PAGE_SIZE;
+    }
+
+    private void setUpStub(List<Ship> fleet) {
+        Map<Long, Ship> shipsById = new HashMap<>(fleet.size() * 2);
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        fleetIndex = new FleetIndex(null, metricsRegistry, true, 0, 50_000);
+        for (Ship ship : fleet) {
+            shipsById.put(ship.getId(), ship);
+            fleetIndex.put(ship);
+        }
+        ShipRepository repository = (ShipRepository) Proxy.newProxyInstance(ShipRepository.class.getClassLoader(),
+                new Class<?>[]{ShipRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findAllById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<Ship> ships = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        Ship ship = shipsById.get(id);
+                        if (ship != null) ships.add(ship);
+                    }
+                    return ships;
+                });
+        shipService = new ShipService(repository, null, null, fleetIndex, CALCULATOR, metricsRegistry, 0);
+    }
+
+    private void setUpH2(List<Ship> fleet) {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class);
+        context.refresh();
+
+        context.getBean(JdbcTemplate.class).update("DELETE FROM ship");
+        ShipJdbcRepository jdbcRepository = context.getBean(ShipJdbcRepository.class);
+        for (int from = 0; from < fleet.size(); from += INSERT_BATCH) {
+            jdbcRepository.insertAll(fleet.subList(from, Math.min(fleet.size(), from + INSERT_BATCH)));
+        }
+        shipService = context.getBean(ShipService.class);
+        sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (fleetIndex != null) {
+            fleetIndex.destroy();
+        }
+    }
+
+    /**
+     * The first page of a filtered list sorted by speed: the heap selection of the index, an index range read in SQL.
+     */
+    @Benchmark
+    public List<Ship> firstPageBySpeed() {
+        evictQueryResults();
+        return shipService.getShipsOnPage(null, null, null, null, null, null, 0.5, null,
+                null, null, null, null, ShipOrder.SPEED, 0, PAGE_SIZE, null);
+    }
+
+    /**
+     * A page in the middle of the same list: a full sort of the matches, a long OFFSET in SQL.
+     */
+    @Benchmark
+    public List<Ship> deepPageBySpeed() {
+        evictQueryResults();
+        return shipService.getShipsOnPage(null, null, null, null, null, null, 0.5, null,
+                null, null, null, null, ShipOrder.SPEED, deepPageNumber, PAGE_SIZE, null);
+    }
+
+    /**
+     * A name substring and two range filters in id order.
+     */
+    @Benchmark
+    public List<Ship> filteredPageById() {
+        evictQueryResults();
+        return shipService.getShipsOnPage("Orbit", null, ShipType.MILITARY, null, null, false, null, null,
+                100, 5000, null, null, null, 1, PAGE_SIZE, null);
+    }
+
+    @Benchmark
+    public long count() {
+        evictQueryResults();
+        return shipService.getShipsCount(null, "ar", ShipType.MERCHANT, null, null, null, 0.2, 0.8,
+                null, null, null, null);
+    }
+
+    private void evictQueryResults() {
+        if (sessionFactory != null) {
+            sessionFactory.getCache().evictQueryRegions();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.space.load;
+
+import com.space.config.AppConfig;
+import com.space.config.WebConfig;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.web.context.ContextLoaderListener;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import javax.servlet.ServletRegistration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+/**
+ * The application in an embedded Tomcat on a free port, wired like MyWebAppInit
+ * but with the "dev" profile, so the ships live in embedded H2.
+ */
+class EmbeddedServer {
+
+    private final Tomcat tomcat = new Tomcat();
+
+    EmbeddedServer(boolean fleetIndex, int threads) throws IOException {
+        Path baseDir = Files.createTempDirectory("cosmoport-load");
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(0);
+        tomcat.getConnector().setProperty("maxThreads", String.valueOf(threads));
+        tomcat.getConnector().setProperty("maxKeepAliveRequests", "-1");
+
+        AnnotationConfigWebApplicationContext root = new AnnotationConfigWebApplicationContext();
+        root.getEnvironment().setActiveProfiles("dev");
+        root.getEnvironment().getPropertySources().addFirst(new MapPropertySource("load",
+                Collections.singletonMap("fleet.index.enabled", String.valueOf(fleetIndex))));
+        root.register(AppConfig.class);
+        AnnotationConfigWebApplicationContext web = new AnnotationConfigWebApplicationContext();
+        web.register(WebConfig.class);
+
+        Context context = tomcat.addContext("", baseDir.toString());
+        context.addServletContainerInitializer((classes, servletContext) -> {
+            servletContext.addListener(new ContextLoaderListener(root));
+            ServletRegistration.Dynamic dispatcher = servletContext.addServlet("dispatcher", new DispatcherServlet(web));
+            dispatcher.setLoadOnStartup(1);
+            dispatcher.addMapping("/");
+        }, Collections.emptySet());
+    }
+
+    /**
+     * @return the base URL of the started application
+     */
+    String start() throws LifecycleException {
+        tomcat.start();
+        return "http://localhost:" + tomcat.getConnector().getLocalPort();
+    }
+
+    void stop() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
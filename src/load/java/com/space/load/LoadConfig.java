@@ -0,0 +1,75 @@
+package com.space.load;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Settings of a run, given as {@code key=value} arguments:
+ * <ul>
+ * <li>{@code ships} ships imported before the run (10000)</li>
+ * <li>{@code clients} concurrent clients (32)</li>
+ * <li>{@code warmup} seconds of load before measuring (10)</li>
+ * <li>{@code duration} measured seconds (30)</li>
+ * <li>{@code mix} relative weights of the operations
+ * ({@code list:50,count:20,get:20,create:4,update:4,delete:2})</li>
+ * <li>{@code fleetIndex} run with the fleet index enabled (false)</li>
+ * <li>{@code out} result file (target/load/result-&lt;start time&gt;.json)</li>
+ * <li>{@code baseline} result file of an earlier run to compare with (none)</li>
+ * </ul>
+ */
+class LoadConfig {
+
+    private static final String DEFAULT_MIX = "list:50,count:20,get:20,create:4,update:4,delete:2";
+
+    final int ships;
+    final int clients;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final boolean fleetIndex;
+    final String out;
+    final String baseline;
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    private final Operation[] weighted;
+
+    LoadConfig(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        ships = Integer.parseInt(values.getOrDefault("ships", "10000"));
+        clients = Integer.parseInt(values.getOrDefault("clients", "32"));
+        warmupSeconds = Integer.parseInt(values.getOrDefault("warmup", "10"));
+        durationSeconds = Integer.parseInt(values.getOrDefault("duration", "30"));
+        fleetIndex = Boolean.parseBoolean(values.getOrDefault("fleetIndex", "false"));
+        out = values.getOrDefault("out", "target/load/result-" + System.currentTimeMillis() + ".json");
+        baseline = values.get("baseline");
+
+        int total = 0;
+        for (String entry : values.getOrDefault("mix", DEFAULT_MIX).split(",")) {
+            String[] parts = entry.split(":");
+            int weight = Integer.parseInt(parts[1].trim());
+            mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        weighted = new Operation[total];
+        int next = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weighted[next++] = entry.getKey();
+            }
+        }
+    }
+
+    Operation nextOperation(Random random) {
+        return weighted[random.nextInt(weighted.length)];
+    }
+}
@@ -0,0 +1,221 @@
+package com.space.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end HTTP load test: starts the application with embedded H2, imports
+ * {@code ships} generated ships through POST /rest/ships/import, then lets
+ * {@code clients} threads send a weighted mix of list, count, get, create,
+ * update and delete requests. After the warm-up the latencies of the measured
+ * phase are written as JSON per endpoint and printed, see {@link LoadConfig}.
+ * <p>
+ * Run with {@code mvn -Pload test-compile exec:exec -Dload.args="ships=100000 clients=64"}.
+ */
+public class LoadHarness {
+
+    private static final String[] LIST_FILTERS = {
+            "",
+            "&name=or",
+            "&planet=Mars&order=SPEED",
+            "&shipType=MILITARY&isUsed=false&order=RATING",
+            "&minSpeed=0.5&maxSpeed=0.9&order=DATE",
+            "&minCrewSize=100&maxCrewSize=2000&minRating=1",
+    };
+    private static final Pattern IMPORTED = Pattern.compile("\"imported\"\\s*:\\s*(\\d+)");
+
+    private final LoadConfig config;
+    private final ShipGenerator generator = new ShipGenerator();
+    private final AtomicLong created = new AtomicLong();
+    private String baseUrl;
+    private final AtomicLong maxId = new AtomicLong();
+    private volatile LoadReport report;
+
+    private LoadHarness(LoadConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = new LoadConfig(args);
+        // HttpURLConnection keeps only 5 idle connections per host by default
+        System.setProperty("http.maxConnections", String.valueOf(config.clients));
+        new LoadHarness(config).run();
+    }
+
+    private void run() throws Exception {
+        EmbeddedServer server = new EmbeddedServer(config.fleetIndex, config.clients);
+        baseUrl = server.start();
+        try {
+            long seedStart = System.nanoTime();
+            long imported = seed();
+            System.out.printf("Imported %d ships in %d ms%n", imported, (System.nanoTime() - seedStart) / 1_000_000);
+            // nothing has been deleted yet, so the ids are 1..count
+            maxId.set(Long.parseLong(send("GET", "/rest/ships/count", null).body));
+
+            report = new LoadReport();
+            List<Thread> clients = startClients(System.nanoTime()
+                    + (config.warmupSeconds + config.durationSeconds) * 1_000_000_000L);
+            Thread.sleep(config.warmupSeconds * 1000L);
+            report = new LoadReport();
+            long measureStart = System.nanoTime();
+            LoadReport measured = report;
+            for (Thread client : clients) {
+                client.join();
+            }
+            double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+            Map<String, Object> result = measured.toMap(config, seconds);
+            File out = new File(config.out);
+            LoadReport.write(result, out);
+            LoadReport.print(result, config.baseline == null ? null : new File(config.baseline));
+            System.out.println("Results written to " + out.getAbsolutePath());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Streams the generated ships to the import endpoint as NDJSON.
+     *
+     * @return the number of imported ships
+     */
+    private long seed() throws IOException {
+        HttpURLConnection connection = open("POST", "/rest/ships/import");
+        connection.setChunkedStreamingMode(64 * 1024);
+        Random random = new Random(42);
+        try (Writer writer = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)) {
+            for (long i = 0; i < config.ships; i++) {
+                writer.write(generator.createJson(i, random));
+                writer.write('\n');
+            }
+        }
+        Response response = read(connection);
+        Matcher matcher = IMPORTED.matcher(response.body);
+        if (response.status != 200 || !matcher.find()) {
+            throw new IllegalStateException("Import failed with " + response.status + ": " + response.body);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private List<Thread> startClients(long deadline) {
+        List<Thread> clients = new ArrayList<>(config.clients);
+        for (int i = 0; i < config.clients; i++) {
+            Thread client = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    runOperation(config.nextOperation(ThreadLocalRandom.current()));
+                }
+            }, "load-client-" + i);
+            client.start();
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    private void runOperation(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String filter = LIST_FILTERS[random.nextInt(LIST_FILTERS.length)];
+        long id = 1 + random.nextLong(maxId.get());
+        long start = System.nanoTime();
+        int status;
+        switch (operation) {
+            case LIST:
+                status = send("GET", "/rest/ships?pageNumber=" + random.nextInt(10) + "&pageSize=20" + filter, null).status;
+                break;
+            case COUNT:
+                status = send("GET", "/rest/ships/count?" + filter, null).status;
+                break;
+            case GET:
+                status = send("GET", "/rest/ships/" + id, null).status;
+                break;
+            case CREATE:
+                status = send("POST", "/rest/ships", generator.createJson(config.ships + created.incrementAndGet(), random)).status;
+                if (status == 200) {
+                    maxId.incrementAndGet();
+                }
+                break;
+            case UPDATE:
+                status = send("POST", "/rest/ships/" + id, generator.updateJson(random)).status;
+                break;
+            case DELETE:
+                status = send("DELETE", "/rest/ships/" + id, null).status;
+                break;
+            default:
+                throw new IllegalStateException(operation.name());
+        }
+        report.record(operation, status, (System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * @return the response, with status -1 if the request failed on the client side
+     */
+    private Response send(String method, String path, String body) {
+        try {
+            HttpURLConnection connection = open(method, path);
+            if (body != null) {
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return read(connection);
+        } catch (IOException e) {
+            return new Response(-1, e.toString());
+        }
+    }
+
+    private HttpURLConnection open(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (!"GET".equals(method) && !"DELETE".equals(method)) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json;charset=UTF-8");
+        }
+        return connection;
+    }
+
+    /**
+     * Reads the whole body, also of an error, so the connection can be reused.
+     */
+    private static Response read(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+            }
+        }
+        return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static final class Response {
+
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.space.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.space.metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies (in microseconds) and response classes per operation of one measured phase.
+ * Client-side failures such as refused connections count as errors, like 5xx responses.
+ */
+class LoadReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<Operation, Endpoint> endpoints = new EnumMap<>(Operation.class);
+
+    LoadReport() {
+        for (Operation operation : Operation.values()) {
+            endpoints.put(operation, new Endpoint());
+        }
+    }
+
+    void record(Operation operation, int status, long micros) {
+        Endpoint endpoint = endpoints.get(operation);
+        endpoint.latency.record(micros);
+        if (status >= 200 && status < 300) {
+            endpoint.ok.increment();
+        } else if (status >= 400 && status < 500) {
+            endpoint.clientErrors.increment();
+        } else {
+            endpoint.errors.increment();
+        }
+    }
+
+    Map<String, Object> toMap(LoadConfig config, double seconds) {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("ships", config.ships);
+        run.put("clients", config.clients);
+        run.put("warmupSeconds", config.warmupSeconds);
+        run.put("durationSeconds", seconds);
+        run.put("fleetIndex", config.fleetIndex);
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        config.mix.forEach((operation, weight) -> mix.put(operation.name().toLowerCase(), weight));
+        run.put("mix", mix);
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (Map.Entry<Operation, Endpoint> entry : endpoints.entrySet()) {
+            LatencyHistogram latency = entry.getValue().latency;
+            if (latency.getCount() == 0) continue;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("requests", latency.getCount());
+            result.put("ok", entry.getValue().ok.sum());
+            // 404 of a get, update or delete of a ship deleted earlier in the run included
+            result.put("clientErrors", entry.getValue().clientErrors.sum());
+            result.put("errors", entry.getValue().errors.sum());
+            result.put("throughput", round(latency.getCount() / seconds));
+            result.put("meanMs", round(latency.getMean() / 1000));
+            result.put("p50Ms", millis(latency.getValueAtPercentile(50)));
+            result.put("p99Ms", millis(latency.getValueAtPercentile(99)));
+            result.put("p999Ms", millis(latency.getValueAtPercentile(99.9)));
+            result.put("maxMs", millis(latency.getMax()));
+            results.put(entry.getKey().name().toLowerCase(), result);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("run", run);
+        report.put("endpoints", results);
+        return report;
+    }
+
+    static void write(Map<String, Object> report, File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        MAPPER.writeValue(file, report);
+    }
+
+    /**
+     * Prints the endpoints of the report; with a baseline also the change of throughput and p99 against it.
+     */
+    static void print(Map<String, Object> report, File baseline) throws IOException {
+        JsonNode current = MAPPER.valueToTree(report).get("endpoints");
+        JsonNode previous = baseline == null ? null : MAPPER.readTree(baseline).get("endpoints");
+
+        System.out.printf("%-8s %10s %10s %9s %9s %9s %9s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        current.fields().forEachRemaining(entry -> {
+            JsonNode result = entry.getValue();
+            System.out.printf("%-8s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %8d",
+                    entry.getKey(), result.get("requests").asLong(), result.get("throughput").asDouble(),
+                    result.get("p50Ms").asDouble(), result.get("p99Ms").asDouble(),
+                    result.get("p999Ms").asDouble(), result.get("maxMs").asDouble(), result.get("errors").asLong());
+            JsonNode before = previous == null ? null : previous.get(entry.getKey());
+            if (before != null) {
+                System.out.printf("   req/s %+.1f%%, p99 %+.1f%%",
+                        change(before.get("throughput").asDouble(), result.get("throughput").asDouble()),
+                        change(before.get("p99Ms").asDouble(), result.get("p99Ms").asDouble()));
+            }
+            System.out.println();
+        });
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000D);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000D;
+    }
+
+    private static final class Endpoint {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,8 @@
+package com.space.load;
+
+/**
+ * The requests of the load mix, one per ShipController endpoint used by the UI.
+ */
+enum Operation {
+    LIST, COUNT, GET, CREATE, UPDATE, DELETE
+}
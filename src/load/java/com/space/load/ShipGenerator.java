@@ -0,0 +1,62 @@
+package com.space.load;
+
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Valid create requests in the format of {@link TestsHelper#NORMAL_JSON}, made by
+ * varying the ships of the functional tests: every generated ship is one of the
+ * {@link TestsHelper#getAllShips()} with a numbered name and a slightly different
+ * speed, crew size and production date.
+ */
+class ShipGenerator {
+
+    private static final String SHIP_JSON =
+            "{" +
+                    "\"name\": \"%s\"," +
+                    "\"planet\":\"%s\"," +
+                    "\"shipType\": \"%s\"," +
+                    "\"prodDate\" : %d," +
+                    "\"isUsed\":%s," +
+                    "\"speed\":%.2f," +
+                    "\"crewSize\": %d" +
+                    "}";
+    private static final String UPDATE_JSON =
+            "{" +
+                    "\"speed\":%.2f," +
+                    "\"crewSize\": %d" +
+                    "}";
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final List<ShipInfoTest> prototypes = new TestsHelper().getAllShips();
+
+    String createJson(long number, Random random) {
+        ShipInfoTest prototype = prototypes.get((int) (number % prototypes.size()));
+        String name = prototype.name + " " + number;
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(name.length() - MAX_NAME_LENGTH);
+        }
+        // at most two years later, which keeps the latest prototype (3016) within 3019
+        long prodDate = prototype.prodDate + random.nextInt(2 * 365) * DAY_MILLIS;
+        return String.format(Locale.ROOT, SHIP_JSON, name, prototype.planet, prototype.shipType, prodDate,
+                prototype.isUsed, speed(prototype.speed, random), crewSize(prototype.crewSize, random));
+    }
+
+    String updateJson(Random random) {
+        return String.format(Locale.ROOT, UPDATE_JSON, speed(0.5, random), crewSize(5000, random));
+    }
+
+    private static double speed(double around, Random random) {
+        double speed = around + (random.nextInt(21) - 10) / 100D;
+        return Math.max(0.01, Math.min(0.99, speed));
+    }
+
+    private static int crewSize(int around, Random random) {
+        return Math.max(1, Math.min(9999, around + random.nextInt(201) - 100));
+    }
+}
@@ -1,12 +1,27 @@
 package com.space.config;
 
+import com.space.metrics.CacheMetrics;
+import com.space.metrics.MetricsRegistry;
+import com.space.metrics.PoolMetrics;
+import com.space.metrics.RequestStatisticsFactory;
+import com.space.metrics.ServerTimingFilter;
+import com.space.metrics.SqlTrace;
+import com.space.metrics.TracingDataSource;
+import com.space.model.RatingCalculator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -17,16 +32,25 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.util.Properties;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
 @Configuration
 @EnableTransactionManagement
-@ComponentScan("com.space.service")
+@ComponentScan({"com.space.service", "com.space.repository"})
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@PropertySource("classpath:cosmoport.properties")
 public class AppConfig {
 
+    private Environment env;
+
+    @Autowired
+    public void setEnv(Environment env) {
+        this.env = env;
+    }
+
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
@@ -41,27 +65,78 @@ public class AppConfig {
     }
 
     @Profile("prod")
-    @Bean
+    @Bean(destroyMethod = "close")
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("cosmoport");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(env.getRequiredProperty("db.url"));
+        config.setUsername(env.getRequiredProperty("db.username"));
+        config.setPassword(env.getRequiredProperty("db.password"));
+        config.setMaximumPoolSize(env.getRequiredProperty("db.pool.maximum-size", Integer.class));
+        config.setMinimumIdle(env.getRequiredProperty("db.pool.minimum-idle", Integer.class));
+        config.setConnectionTimeout(env.getRequiredProperty("db.pool.connection-timeout-ms", Long.class));
+        config.setIdleTimeout(env.getRequiredProperty("db.pool.idle-timeout-ms", Long.class));
+        config.setMaxLifetime(env.getRequiredProperty("db.pool.max-lifetime-ms", Long.class));
+        config.setLeakDetectionThreshold(env.getRequiredProperty("db.pool.leak-detection-threshold-ms", Long.class));
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize",
+                env.getRequiredProperty("db.pool.prepared-statement-cache-size"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit",
+                env.getRequiredProperty("db.pool.prepared-statement-cache-sql-limit"));
+        config.setMetricsTrackerFactory(poolMetrics());
+        return new TracingDataSource(new HikariDataSource(config), sqlTrace());
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean
+    public SqlTrace sqlTrace() {
+        return new SqlTrace(env.getRequiredProperty("sql.slow-threshold-ms", Long.class),
+                env.getRequiredProperty("sql.slow-log-size", Integer.class),
+                env.getRequiredProperty("sql.slow-log-binds", Boolean.class));
     }
 
     @Profile("dev")
     @Bean(name = "dataSource")
     public DataSource dataSourceForTests() {
 
-        return new EmbeddedDatabaseBuilder()
+        return new TracingDataSource(new EmbeddedDatabaseBuilder()
                 .generateUniqueName(true)
                 .setType(H2)
                 .setScriptEncoding("UTF-8")
                 .ignoreFailedDrops(true)
                 .addScript("test.sql")
-                .build();
+                .build(), sqlTrace());
+    }
+
+    @Bean
+    public MetricsRegistry metricsRegistry() {
+        return new MetricsRegistry();
+    }
+
+    @Bean
+    public ServerTimingFilter serverTimingFilter() {
+        return new ServerTimingFilter(env.getRequiredProperty("diagnostics.server-timing.enabled", Boolean.class));
+    }
+
+    @Bean
+    public RatingCalculator ratingCalculator() {
+        return new RatingCalculator(env.getRequiredProperty("rating.current-year", Integer.class));
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public CacheMetrics cacheMetrics(EntityManagerFactory emf) {
+        return new CacheMetrics(emf.unwrap(SessionFactory.class));
     }
 
     @Bean
@@ -81,6 +156,24 @@ public class AppConfig {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
 
+        properties.setProperty("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.use_query_cache", "true");
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+        properties.setProperty("hibernate.javax.cache.uri", cacheConfigUri());
+        properties.setProperty("hibernate.generate_statistics", env.getRequiredProperty("diagnostics.server-timing.enabled"));
+        properties.setProperty("hibernate.stats.factory", RequestStatisticsFactory.class.getName());
+
         return properties;
     }
+
+    private String cacheConfigUri() {
+        try {
+            // Hibernate's own "classpath:" lookup prepends a slash that ClassLoader.getResource rejects
+            return new ClassPathResource("ehcache.xml").getURI().toString();
+        } catch (IOException e) {
+            throw new IllegalStateException("ehcache.xml is missing from the classpath", e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.space.controller;
+
+import com.space.metrics.CacheMetrics;
+import com.space.metrics.MetricsRegistry;
+import com.space.metrics.PoolMetrics;
+import com.space.metrics.SqlTrace;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class MetricsController {
+
+    private PoolMetrics poolMetrics;
+    private CacheMetrics cacheMetrics;
+    private MetricsRegistry metricsRegistry;
+    private SqlTrace sqlTrace;
+    private boolean slowQueriesEnabled;
+
+    @Autowired
+    public MetricsController(PoolMetrics poolMetrics, CacheMetrics cacheMetrics, MetricsRegistry metricsRegistry,
+                             SqlTrace sqlTrace, @Value("${diagnostics.slow-queries.enabled}") boolean slowQueriesEnabled) {
+        this.poolMetrics = poolMetrics;
+        this.cacheMetrics = cacheMetrics;
+        this.metricsRegistry = metricsRegistry;
+        this.sqlTrace = sqlTrace;
+        this.slowQueriesEnabled = slowQueriesEnabled;
+    }
+
+    /**
+     * Request, stage and row metrics for a Prometheus scrape.
+     */
+    @GetMapping(value = "/metrics")
+    public void getMetrics(HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(metricsRegistry.toPrometheus());
+    }
+
+    @GetMapping(value = "/rest/metrics/pool")
+    public ResponseEntity<Map<String, Object>> getPoolMetrics() {
+        if (!poolMetrics.isBound()) {
+            // the embedded dev database is not pooled
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(poolMetrics.toMap(), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/rest/metrics/cache")
+    public Map<String, Object> getCacheMetrics() {
+        return cacheMetrics.toMap();
+    }
+
+    /**
+     * Executions, time and rows per SQL statement, the statement with the most total time first.
+     */
+    @GetMapping(value = "/rest/metrics/statements")
+    public List<Map<String, Object>> getStatementMetrics() {
+        return sqlTrace.getStatements();
+    }
+
+    /**
+     * The latest statements slower than {@code sql.slow-threshold-ms}, with bind values and EXPLAIN plan;
+     * only while {@code diagnostics.slow-queries.enabled} is on.
+     */
+    @GetMapping(value = "/rest/admin/slow-queries")
+    public ResponseEntity<List<Map<String, Object>>> getSlowQueries() {
+        if (!slowQueriesEnabled) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(sqlTrace.getSlowStatements(), HttpStatus.OK);
+    }
+}
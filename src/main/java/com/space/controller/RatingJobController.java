@@ -0,0 +1,34 @@
+package com.space.controller;
+
+import com.space.dto.RatingRecalculationStatus;
+import com.space.service.RatingRecalculationJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class RatingJobController {
+
+    private RatingRecalculationJob ratingRecalculationJob;
+
+    @Autowired
+    public RatingJobController(RatingRecalculationJob ratingRecalculationJob) {
+        this.ratingRecalculationJob = ratingRecalculationJob;
+    }
+
+    @PostMapping(value = "/rest/admin/ratings/recalculation")
+    public ResponseEntity<RatingRecalculationStatus> startRecalculation() {
+        if (!ratingRecalculationJob.start()) {
+            return new ResponseEntity<>(ratingRecalculationJob.getStatus(), HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(ratingRecalculationJob.getStatus(), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping(value = "/rest/admin/ratings/recalculation")
+    public RatingRecalculationStatus getRecalculationStatus() {
+        return ratingRecalculationJob.getStatus();
+    }
+}
@@ -1,65 +1,172 @@
 package com.space.controller;
 
 import com.space.dto.AddOrUpdateShipDtoRequest;
+import com.space.dto.ShipCursor;
+import com.space.dto.ShipImportReport;
 import com.space.model.Ship;
 import com.space.model.ShipType;
+import com.space.service.ShipBulkService;
+import com.space.service.ShipExportFormat;
+import com.space.service.ShipExportService;
+import com.space.service.ShipImportService;
 import com.space.service.ShipService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 public class ShipController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     public ShipService shipService;
+    public ShipImportService shipImportService;
+    public ShipExportService shipExportService;
+    public ShipBulkService shipBulkService;
 
     @Autowired
-    public ShipController(ShipService shipService) {
+    public ShipController(ShipService shipService, ShipImportService shipImportService,
+                          ShipExportService shipExportService, ShipBulkService shipBulkService) {
         this.shipService = shipService;
+        this.shipImportService = shipImportService;
+        this.shipExportService = shipExportService;
+        this.shipBulkService = shipBulkService;
     }
 
     @GetMapping(value = "/rest/ships")
-    public List<Ship> getAllShips(@RequestParam(value = "name", required = false) String name,
-                                  @RequestParam(value = "planet", required = false) String planet,
-                                  @RequestParam(value = "shipType", required = false) ShipType shipType,
-                                  @RequestParam(value = "after", required = false) Long after,
-                                  @RequestParam(value = "before", required = false) Long before,
-                                  @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-                                  @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-                                  @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-                                  @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-                                  @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                  @RequestParam(value = "minRating", required = false) Double minRating,
-                                  @RequestParam(value = "maxRating", required = false) Double maxRating,
-                                  @RequestParam(value = "order", required = false) ShipOrder order,
-                                  @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
-                                  @RequestParam(value = "pageSize", required = false) Integer pageSize) {
-
-        List<Ship> allShips = shipService.getShips(name, planet, shipType,
+    public ResponseEntity<List<Ship>> getAllShips(@RequestParam(value = "name", required = false) String name,
+                                                  @RequestParam(value = "planet", required = false) String planet,
+                                                  @RequestParam(value = "shipType", required = false) ShipType shipType,
+                                                  @RequestParam(value = "after", required = false) Long after,
+                                                  @RequestParam(value = "before", required = false) Long before,
+                                                  @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                                                  @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                                                  @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                                                  @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                                                  @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                                                  @RequestParam(value = "minRating", required = false) Double minRating,
+                                                  @RequestParam(value = "maxRating", required = false) Double maxRating,
+                                                  @RequestParam(value = "order", required = false) ShipOrder order,
+                                                  @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
+                                                  @RequestParam(value = "pageSize", required = false) Integer pageSize,
+                                                  @RequestParam(value = "cursor", required = false) String cursor) {
+
+        if ((pageNumber != null && pageNumber < 0) || (pageSize != null && pageSize < 0)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        ShipOrder shipOrder = order == null ? ShipOrder.ID : order;
+        ShipCursor shipCursor = null;
+        if (cursor != null) {
+            try {
+                shipCursor = ShipCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            if (shipCursor.getOrder() != shipOrder) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        List<Ship> ships = shipService.getShipsOnPage(name, planet, shipType,
                 after, before, isUsed, minSpeed, maxSpeed,
-                minCrewSize, maxCrewSize, minRating, maxRating);
-        List<Ship> sortedShips = shipService.sortShipsByOrder(allShips, order);
-        return shipService.getShipsOnPage(sortedShips, pageNumber, pageSize);
+                minCrewSize, maxCrewSize, minRating, maxRating,
+                shipOrder, pageNumber, pageSize, shipCursor);
+
+        HttpHeaders headers = new HttpHeaders();
+        // a short page is the last one; a full one may be too, which the next request finds out
+        if (!ships.isEmpty() && ships.size() == (pageSize == null ? ShipService.DEFAULT_PAGE_SIZE : pageSize)) {
+            Ship last = ships.get(ships.size() - 1);
+            headers.set(NEXT_CURSOR_HEADER, ShipCursor.afterShip(shipOrder, last).encode());
+        }
+        return new ResponseEntity<>(ships, headers, HttpStatus.OK);
     }
 
     @GetMapping(value = "/rest/ships/count")
-    public Integer getShipsCount(@RequestParam(value = "name", required = false) String name,
-                                 @RequestParam(value = "planet", required = false) String planet,
-                                 @RequestParam(value = "shipType", required = false) ShipType shipType,
-                                 @RequestParam(value = "after", required = false) Long after,
-                                 @RequestParam(value = "before", required = false) Long before,
-                                 @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-                                 @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-                                 @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-                                 @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-                                 @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                 @RequestParam(value = "minRating", required = false) Double minRating,
-                                 @RequestParam(value = "maxRating", required = false) Double maxRating) {
-        return shipService.getShips(name, planet, shipType,
+    public Long getShipsCount(@RequestParam(value = "name", required = false) String name,
+                              @RequestParam(value = "planet", required = false) String planet,
+                              @RequestParam(value = "shipType", required = false) ShipType shipType,
+                              @RequestParam(value = "after", required = false) Long after,
+                              @RequestParam(value = "before", required = false) Long before,
+                              @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                              @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                              @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                              @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                              @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                              @RequestParam(value = "minRating", required = false) Double minRating,
+                              @RequestParam(value = "maxRating", required = false) Double maxRating) {
+        return shipService.getShipsCount(name, planet, shipType,
+                after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    @GetMapping(value = "/rest/ships/export")
+    public void exportShips(@RequestParam(value = "name", required = false) String name,
+                            @RequestParam(value = "planet", required = false) String planet,
+                            @RequestParam(value = "shipType", required = false) ShipType shipType,
+                            @RequestParam(value = "after", required = false) Long after,
+                            @RequestParam(value = "before", required = false) Long before,
+                            @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                            @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                            @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                            @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                            @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                            @RequestParam(value = "minRating", required = false) Double minRating,
+                            @RequestParam(value = "maxRating", required = false) Double maxRating,
+                            @RequestParam(value = "order", required = false) ShipOrder order,
+                            @RequestParam(value = "format", required = false) ShipExportFormat format,
+                            HttpServletResponse response) throws IOException {
+        ShipExportFormat exportFormat = format == null ? ShipExportFormat.NDJSON : format;
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        shipExportService.exportShips(name, planet, shipType,
+                after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating,
+                order, exportFormat, response.getOutputStream());
+    }
+
+    @PostMapping(value = "/rest/ships/bulk")
+    public ResponseEntity<Long> updateShips(@RequestParam(value = "name", required = false) String name,
+                                            @RequestParam(value = "planet", required = false) String planet,
+                                            @RequestParam(value = "shipType", required = false) ShipType shipType,
+                                            @RequestParam(value = "after", required = false) Long after,
+                                            @RequestParam(value = "before", required = false) Long before,
+                                            @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                                            @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                                            @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                                            @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                                            @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                                            @RequestParam(value = "minRating", required = false) Double minRating,
+                                            @RequestParam(value = "maxRating", required = false) Double maxRating,
+                                            @RequestBody AddOrUpdateShipDtoRequest request) {
+        return shipBulkService.updateShips(name, planet, shipType,
+                after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating, request);
+    }
+
+    @DeleteMapping(value = "/rest/ships")
+    public ResponseEntity<Long> deleteShips(@RequestParam(value = "name", required = false) String name,
+                                            @RequestParam(value = "planet", required = false) String planet,
+                                            @RequestParam(value = "shipType", required = false) ShipType shipType,
+                                            @RequestParam(value = "after", required = false) Long after,
+                                            @RequestParam(value = "before", required = false) Long before,
+                                            @RequestParam(value = "isUsed", required = false) Boolean isUsed,
+                                            @RequestParam(value = "minSpeed", required = false) Double minSpeed,
+                                            @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
+                                            @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
+                                            @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
+                                            @RequestParam(value = "minRating", required = false) Double minRating,
+                                            @RequestParam(value = "maxRating", required = false) Double maxRating) {
+        return shipBulkService.deleteShips(name, planet, shipType,
                 after, before, isUsed, minSpeed, maxSpeed,
-                minCrewSize, maxCrewSize, minRating, maxRating).size();
+                minCrewSize, maxCrewSize, minRating, maxRating);
     }
 
     @PostMapping(value = "/rest/ships")
@@ -67,6 +174,11 @@ public class ShipController {
         return shipService.validateAndSaveShip(request);
     }
 
+    @PostMapping(value = "/rest/ships/import")
+    public ShipImportReport importShips(HttpServletRequest request) throws IOException {
+        return shipImportService.importShips(request.getInputStream());
+    }
+
     @GetMapping(value = "/rest/ships/{id}")
     public ResponseEntity<Ship> getShipById(@PathVariable(value = "id") Long shipId) {
         return shipService.getShip(shipId);
@@ -74,13 +186,55 @@ public class ShipController {
 
     @PostMapping(value = "rest/ships/{id}")
     public ResponseEntity<Ship> updateShip(@PathVariable(value = "id") Long shipId,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                             @RequestBody AddOrUpdateShipDtoRequest request) {
-        return shipService.updateShip(shipId, request);
+        Long expectedVersion;
+        try {
+            expectedVersion = parseIfMatch(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return shipService.updateShip(shipId, request, expectedVersion);
+    }
+
+    @PatchMapping(value = "/rest/ships/{id}")
+    public ResponseEntity<Ship> patchShip(@PathVariable(value = "id") Long shipId,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestBody AddOrUpdateShipDtoRequest request) {
+        Long expectedVersion;
+        try {
+            expectedVersion = parseIfMatch(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return shipService.patchShip(shipId, request, expectedVersion);
     }
 
     @DeleteMapping(value = "/rest/ships/{id}")
-    public ResponseEntity<Ship> deleteShip(@PathVariable(value = "id") Long shipId) {
-        return shipService.deleteShip(shipId);
+    public ResponseEntity<Ship> deleteShip(@PathVariable(value = "id") Long shipId,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = parseIfMatch(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return shipService.deleteShip(shipId, expectedVersion);
+    }
+
+    /**
+     * The version a write is conditional on: the ETag of a single ship, or {@code null}
+     * for a missing header or {@code *}.
+     */
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new IllegalArgumentException("Not a ship ETag: " + ifMatch);
+        }
+        return Long.parseLong(tag.substring(1, tag.length() - 1));
     }
 
 }
@@ -0,0 +1,70 @@
+package com.space.dto;
+
+/**
+ * A snapshot of the progress of the rating recalculation job.
+ */
+public class RatingRecalculationStatus {
+
+    public enum State {
+        IDLE, RUNNING, FINISHED, FAILED
+    }
+
+    private State state;
+    private int currentYear;
+    private long lastId;
+    private long rowsScanned;
+    private long rowsUpdated;
+    private long rowsPerSecond;
+    private String error;
+
+    public RatingRecalculationStatus(State state, int currentYear, long lastId,
+                                     long rowsScanned, long rowsUpdated, long rowsPerSecond, String error) {
+        this.state = state;
+        this.currentYear = currentYear;
+        this.lastId = lastId;
+        this.rowsScanned = rowsScanned;
+        this.rowsUpdated = rowsUpdated;
+        this.rowsPerSecond = rowsPerSecond;
+        this.error = error;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getCurrentYear() {
+        return currentYear;
+    }
+
+    /**
+     * The id up to which ratings are recalculated and committed.
+     */
+    public long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Ships read by the job for this current year, including runs it resumed from.
+     */
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    /**
+     * Ships whose rating changed in the current run.
+     */
+    public long getRowsUpdated() {
+        return rowsUpdated;
+    }
+
+    /**
+     * Ships read per second by the current run.
+     */
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
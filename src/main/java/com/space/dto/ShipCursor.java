@@ -0,0 +1,82 @@
+package com.space.dto;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque position in the ship list used for keyset pagination: the value of
+ * the order field of the last returned ship plus its id as the tie-breaker.
+ */
+public class ShipCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final ShipOrder order;
+    private final Comparable<?> value;
+    private final long id;
+
+    private ShipCursor(ShipOrder order, Comparable<?> value, long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static ShipCursor afterShip(ShipOrder order, Ship ship) {
+        switch (order) {
+            case SPEED: return new ShipCursor(order, ship.getSpeed(), ship.getId());
+            case DATE: return new ShipCursor(order, ship.getProdDate().getTime(), ship.getId());
+            case RATING: return new ShipCursor(order, ship.getRating(), ship.getId());
+            default: return new ShipCursor(ShipOrder.ID, null, ship.getId());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static ShipCursor decode(String token) {
+        String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(SEPARATOR, -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+        ShipOrder order = ShipOrder.valueOf(parts[0]);
+        long id = Long.parseLong(parts[2]);
+        switch (order) {
+            case SPEED:
+            case RATING:
+                return new ShipCursor(order, Double.valueOf(parts[1]), id);
+            case DATE:
+                return new ShipCursor(order, Long.valueOf(parts[1]), id);
+            default:
+                return new ShipCursor(order, null, id);
+        }
+    }
+
+    public String encode() {
+        String raw = order.name() + SEPARATOR + (value == null ? "" : value) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ShipOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Value of the order field in the form the entity attribute is compared with,
+     * or {@code null} when ordering by id.
+     */
+    public Comparable<?> getValue() {
+        if (order == ShipOrder.DATE) {
+            return new Date((Long) value);
+        }
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,67 @@
+package com.space.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShipImportReport {
+
+    /**
+     * Only the first errors are listed, so a hopeless file cannot blow up the response.
+     */
+    public static final int MAX_LISTED_ERRORS = 1000;
+
+    private long received;
+    private long imported;
+    private long failed;
+    private List<RecordError> errors = new ArrayList<>();
+
+    public void recordReceived() {
+        received++;
+    }
+
+    public void recordImported(int count) {
+        imported += count;
+    }
+
+    public void recordFailed(long index, String message) {
+        failed++;
+        if (errors.size() < MAX_LISTED_ERRORS) {
+            errors.add(new RecordError(index, message));
+        }
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<RecordError> getErrors() {
+        return errors;
+    }
+
+    public static class RecordError {
+
+        private long index;
+        private String message;
+
+        public RecordError(long index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
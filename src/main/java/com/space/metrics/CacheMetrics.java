@@ -0,0 +1,73 @@
+package com.space.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hit, miss, put and eviction counters of the Hibernate second-level cache
+ * regions. Hits, misses and puts come from Hibernate statistics; evictions
+ * are only known to the cache provider and are read from its JCache
+ * statistics MBeans.
+ */
+public class CacheMetrics {
+
+    private static final String CACHE_STATISTICS_PATTERN = "javax.cache:type=CacheStatistics,*";
+
+    private final SessionFactory sessionFactory;
+
+    public CacheMetrics(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public Map<String, Object> toMap() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Long> evictions = getEvictions();
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) continue;
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("hits", region.getHitCount());
+            map.put("misses", region.getMissCount());
+            map.put("puts", region.getPutCount());
+            map.put("evictions", evictions.getOrDefault(regionName, 0L));
+            map.put("size", region.getElementCountInMemory());
+            regions.put(regionName, map);
+        }
+
+        Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("hits", statistics.getQueryCacheHitCount());
+        queries.put("misses", statistics.getQueryCacheMissCount());
+        queries.put("puts", statistics.getQueryCachePutCount());
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("regions", regions);
+        map.put("queries", queries);
+        return map;
+    }
+
+    private Map<String, Long> getEvictions() {
+        Map<String, Long> evictions = new LinkedHashMap<>();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName(CACHE_STATISTICS_PATTERN), null)) {
+                String cache = name.getKeyProperty("Cache");
+                if (cache.startsWith("\"")) cache = ObjectName.unquote(cache);
+                Long count = (Long) server.getAttribute(name, "CacheEvictions");
+                evictions.merge(cache, count, Long::sum);
+            }
+        } catch (JMException e) {
+            // statistics MBeans are optional; report no evictions rather than failing the scrape
+        }
+        return evictions;
+    }
+}
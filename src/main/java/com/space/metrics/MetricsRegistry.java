@@ -0,0 +1,243 @@
+package com.space.metrics;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request latency per endpoint, time per internal stage of the list and count
+ * requests, and the rows they looked at against the rows they returned.
+ * <p>
+ * Everything is recorded into {@link LatencyHistogram}s and {@link LongAdder}s,
+ * so the hot path pays for a {@code System.nanoTime()} pair, a map lookup per
+ * request and a few atomic increments. Durations are in nanoseconds and are
+ * exported in seconds by {@link #toPrometheus()} as Prometheus histograms: the
+ * cumulative bucket counts only ever grow, so quantiles over any window are left
+ * to {@code histogram_quantile} on the scraping side instead of being computed
+ * here over the whole life of the process.
+ */
+public class MetricsRegistry {
+
+    public enum Stage {
+        /** a repository call: the SQL query, or loading the ships of an index page by id */
+        FETCH,
+        /** the range and substring scan of the fleet index */
+        FILTER,
+        /** ordering the matches of the fleet index */
+        SORT,
+        /** taking the ids of the requested page out of the ordered matches */
+        PAGE,
+        /** writing the JSON response body */
+        SERIALIZE
+    }
+
+    public enum RowSource {
+        INDEX, DATABASE
+    }
+
+    /**
+     * Upper bounds of the exported histogram buckets, in nanoseconds: 100µs to 10s.
+     */
+    private static final long[] BUCKET_BOUNDS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+    private static final String[] BUCKET_LABELS = new String[BUCKET_BOUNDS.length + 1];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            BUCKET_LABELS[i] = BigDecimal.valueOf(BUCKET_BOUNDS[i], 9).stripTrailingZeros().toPlainString();
+        }
+        BUCKET_LABELS[BUCKET_BOUNDS.length] = "+Inf";
+    }
+
+    private final ConcurrentMap<Endpoint, LatencyHistogram> requests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Response, LongAdder> responses = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private final LongAdder[] rowsScanned = new LongAdder[RowSource.values().length];
+    private final LongAdder[] rowsReturned = new LongAdder[RowSource.values().length];
+
+    public MetricsRegistry() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < rowsScanned.length; i++) {
+            rowsScanned[i] = new LongAdder();
+            rowsReturned[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param uri the mapping pattern of the handler, such as {@code /rest/ships/{id}}, so ids do not become labels
+     */
+    public void recordRequest(String method, String uri, int status, long nanos) {
+        Endpoint endpoint = new Endpoint(method, uri);
+        requests.computeIfAbsent(endpoint, key -> new LatencyHistogram()).record(nanos);
+        responses.computeIfAbsent(new Response(endpoint, status), key -> new LongAdder()).increment();
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    public void recordRowsScanned(RowSource source, long rows) {
+        rowsScanned[source.ordinal()].add(rows);
+    }
+
+    public void recordRowsReturned(RowSource source, long rows) {
+        rowsReturned[source.ordinal()].add(rows);
+    }
+
+    public LatencyHistogram getStage(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    public long getRowsScanned(RowSource source) {
+        return rowsScanned[source.ordinal()].sum();
+    }
+
+    public long getRowsReturned(RowSource source) {
+        return rowsReturned[source.ordinal()].sum();
+    }
+
+    /**
+     * Everything in the Prometheus text exposition format, version 0.0.4. The database
+     * reports no rows scanned, only the rows it returned; its plans are not visible here.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "cosmoport_http_request_seconds", "histogram", "Latency of HTTP requests per endpoint.");
+        for (Map.Entry<Endpoint, LatencyHistogram> entry : sorted(requests).entrySet()) {
+            histogram(out, "cosmoport_http_request_seconds", entry.getKey().labels(), entry.getValue());
+        }
+
+        header(out, "cosmoport_http_responses_total", "counter", "HTTP responses per endpoint and status.");
+        for (Map.Entry<Response, LongAdder> entry : sorted(responses).entrySet()) {
+            Response response = entry.getKey();
+            sample(out, "cosmoport_http_responses_total",
+                    response.endpoint.labels() + ",status=\"" + response.status + "\"", entry.getValue().sum());
+        }
+
+        header(out, "cosmoport_stage_seconds", "histogram", "Time spent per internal stage of list and count requests.");
+        for (Stage stage : Stage.values()) {
+            histogram(out, "cosmoport_stage_seconds", label("stage", stage), stages[stage.ordinal()]);
+        }
+
+        header(out, "cosmoport_rows_scanned_total", "counter", "Rows examined by the range and substring filters.");
+        for (RowSource source : RowSource.values()) {
+            sample(out, "cosmoport_rows_scanned_total", label("source", source), getRowsScanned(source));
+        }
+        header(out, "cosmoport_rows_returned_total", "counter", "Rows returned to the caller.");
+        for (RowSource source : RowSource.values()) {
+            sample(out, "cosmoport_rows_returned_total", label("source", source), getRowsReturned(source));
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        long[] cumulative = histogram.getCumulativeCounts(BUCKET_BOUNDS);
+        for (int i = 0; i < cumulative.length; i++) {
+            sample(out, name + "_bucket", labels + ",le=\"" + BUCKET_LABELS[i] + "\"", cumulative[i]);
+        }
+        sample(out, name + "_sum", labels, seconds(histogram.getSum()));
+        // the +Inf bucket, which Prometheus expects to equal the count
+        sample(out, name + "_count", labels, cumulative[cumulative.length - 1]);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String label(String name, Enum<?> value) {
+        return name + "=\"" + value.name().toLowerCase(Locale.ROOT) + "\"";
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static <K extends Comparable<K>, V> Map<K, V> sorted(Map<K, V> map) {
+        return new TreeMap<>(map);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Endpoint implements Comparable<Endpoint> {
+
+        final String method;
+        final String uri;
+
+        Endpoint(String method, String uri) {
+            this.method = method;
+            this.uri = uri;
+        }
+
+        String labels() {
+            return "method=\"" + escape(method) + "\",uri=\"" + escape(uri) + "\"";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Endpoint)) return false;
+            Endpoint other = (Endpoint) o;
+            return method.equals(other.method) && uri.equals(other.uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + uri.hashCode();
+        }
+
+        @Override
+        public int compareTo(Endpoint other) {
+            int byUri = uri.compareTo(other.uri);
+            return byUri != 0 ? byUri : method.compareTo(other.method);
+        }
+    }
+
+    private static final class Response implements Comparable<Response> {
+
+        final Endpoint endpoint;
+        final int status;
+
+        Response(Endpoint endpoint, int status) {
+            this.endpoint = endpoint;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Response)) return false;
+            Response other = (Response) o;
+            return endpoint.equals(other.endpoint) && status == other.status;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * endpoint.hashCode() + status;
+        }
+
+        @Override
+        public int compareTo(Response other) {
+            int byEndpoint = endpoint.compareTo(other.endpoint);
+            return byEndpoint != 0 ? byEndpoint : Integer.compare(status, other.status);
+        }
+    }
+}
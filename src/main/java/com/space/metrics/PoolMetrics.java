@@ -0,0 +1,112 @@
+package com.space.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects connection pool metrics from HikariCP: the live pool state and
+ * the distribution of connection acquire, usage and creation times.
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final LatencyHistogram acquireNanos = new LatencyHistogram();
+    private final LatencyHistogram usageMillis = new LatencyHistogram();
+    private final LatencyHistogram creationMillis = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                creationMillis.record(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireNanos.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.record(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public boolean isBound() {
+        return poolStats != null;
+    }
+
+    public LatencyHistogram getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    public LatencyHistogram getUsageMillis() {
+        return usageMillis;
+    }
+
+    public LatencyHistogram getCreationMillis() {
+        return creationMillis;
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public PoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    public Map<String, Object> toMap() {
+        PoolStats stats = poolStats;
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pool", poolName);
+        map.put("total", stats.getTotalConnections());
+        map.put("active", stats.getActiveConnections());
+        map.put("idle", stats.getIdleConnections());
+        map.put("pending", stats.getPendingThreads());
+        map.put("max", stats.getMaxConnections());
+        map.put("timeouts", getTimeouts());
+
+        Map<String, Object> acquire = new LinkedHashMap<>();
+        acquire.put("count", acquireNanos.getCount());
+        acquire.put("meanMicros", TimeUnit.NANOSECONDS.toMicros((long) acquireNanos.getMean()));
+        acquire.put("p50Micros", TimeUnit.NANOSECONDS.toMicros(acquireNanos.getValueAtPercentile(50)));
+        acquire.put("p99Micros", TimeUnit.NANOSECONDS.toMicros(acquireNanos.getValueAtPercentile(99)));
+        acquire.put("p999Micros", TimeUnit.NANOSECONDS.toMicros(acquireNanos.getValueAtPercentile(99.9)));
+        acquire.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(acquireNanos.getMax()));
+        map.put("acquire", acquire);
+
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("count", usageMillis.getCount());
+        usage.put("p50Millis", usageMillis.getValueAtPercentile(50));
+        usage.put("p99Millis", usageMillis.getValueAtPercentile(99));
+        usage.put("maxMillis", usageMillis.getMax());
+        map.put("usage", usage);
+
+        Map<String, Object> creation = new LinkedHashMap<>();
+        creation.put("count", creationMillis.getCount());
+        creation.put("p50Millis", creationMillis.getValueAtPercentile(50));
+        creation.put("p99Millis", creationMillis.getValueAtPercentile(99));
+        creation.put("maxMillis", creationMillis.getMax());
+        map.put("creation", creation);
+        return map;
+    }
+}
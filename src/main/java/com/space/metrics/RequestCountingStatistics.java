@@ -0,0 +1,514 @@
+package com.space.metrics;
+
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.NaturalIdCacheStatistics;
+import org.hibernate.stat.NaturalIdStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * Hibernate's statistics with every event also counted in the {@link RequestStatistics}
+ * of the calling thread; everything else is passed through to the statistics Hibernate
+ * would have built itself.
+ */
+final class RequestCountingStatistics implements StatisticsImplementor {
+
+    private final StatisticsImplementor delegate;
+
+    RequestCountingStatistics(StatisticsImplementor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+        RequestStatistics.recordFlush();
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+        delegate.loadEntity(entityName);
+        RequestStatistics.recordEntityLoad();
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+        delegate.fetchEntity(entityName);
+        RequestStatistics.recordEntityFetch();
+    }
+
+    @Override
+    public void loadCollection(String role) {
+        delegate.loadCollection(role);
+        RequestStatistics.recordCollectionLoad();
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+        delegate.fetchCollection(role);
+        RequestStatistics.recordCollectionFetch();
+    }
+
+    @Override
+    public void entityCacheHit(NavigableRole entityName, String regionName) {
+        delegate.entityCacheHit(entityName, regionName);
+        RequestStatistics.recordSecondLevelCache(true);
+    }
+
+    @Override
+    public void entityCacheMiss(NavigableRole entityName, String regionName) {
+        delegate.entityCacheMiss(entityName, regionName);
+        RequestStatistics.recordSecondLevelCache(false);
+    }
+
+    @Override
+    public void collectionCacheHit(NavigableRole role, String regionName) {
+        delegate.collectionCacheHit(role, regionName);
+        RequestStatistics.recordSecondLevelCache(true);
+    }
+
+    @Override
+    public void collectionCacheMiss(NavigableRole role, String regionName) {
+        delegate.collectionCacheMiss(role, regionName);
+        RequestStatistics.recordSecondLevelCache(false);
+    }
+
+    @Override
+    public void queryCacheHit(String hql, String regionName) {
+        delegate.queryCacheHit(hql, regionName);
+        RequestStatistics.recordQueryCache(true);
+    }
+
+    @Override
+    public void queryCacheMiss(String hql, String regionName) {
+        delegate.queryCacheMiss(hql, regionName);
+        RequestStatistics.recordQueryCache(false);
+    }
+
+    @Override
+    public void queryExecuted(String hql, int rows, long time) {
+        delegate.queryExecuted(hql, rows, time);
+        RequestStatistics.recordQuery();
+    }
+
+    @Override
+    public void openSession() {
+        delegate.openSession();
+    }
+
+    @Override
+    public void closeSession() {
+        delegate.closeSession();
+    }
+
+    @Override
+    public void connect() {
+        delegate.connect();
+    }
+
+    @Override
+    public void prepareStatement() {
+        delegate.prepareStatement();
+    }
+
+    @Override
+    public void closeStatement() {
+        delegate.closeStatement();
+    }
+
+    @Override
+    public void endTransaction(boolean success) {
+        delegate.endTransaction(success);
+    }
+
+    @Override
+    public void updateEntity(String entityName) {
+        delegate.updateEntity(entityName);
+    }
+
+    @Override
+    public void insertEntity(String entityName) {
+        delegate.insertEntity(entityName);
+    }
+
+    @Override
+    public void deleteEntity(String entityName) {
+        delegate.deleteEntity(entityName);
+    }
+
+    @Override
+    public void optimisticFailure(String entityName) {
+        delegate.optimisticFailure(entityName);
+    }
+
+    @Override
+    public void updateCollection(String role) {
+        delegate.updateCollection(role);
+    }
+
+    @Override
+    public void recreateCollection(String role) {
+        delegate.recreateCollection(role);
+    }
+
+    @Override
+    public void removeCollection(String role) {
+        delegate.removeCollection(role);
+    }
+
+    @Override
+    public void entityCachePut(NavigableRole entityName, String regionName) {
+        delegate.entityCachePut(entityName, regionName);
+    }
+
+    @Override
+    public void collectionCachePut(NavigableRole role, String regionName) {
+        delegate.collectionCachePut(role, regionName);
+    }
+
+    @Override
+    public void naturalIdCachePut(NavigableRole entityName, String regionName) {
+        delegate.naturalIdCachePut(entityName, regionName);
+    }
+
+    @Override
+    public void naturalIdCacheHit(NavigableRole entityName, String regionName) {
+        delegate.naturalIdCacheHit(entityName, regionName);
+    }
+
+    @Override
+    public void naturalIdCacheMiss(NavigableRole entityName, String regionName) {
+        delegate.naturalIdCacheMiss(entityName, regionName);
+    }
+
+    @Override
+    public void naturalIdQueryExecuted(String rootEntityName, long time) {
+        delegate.naturalIdQueryExecuted(rootEntityName, time);
+    }
+
+    @Override
+    public void queryCachePut(String hql, String regionName) {
+        delegate.queryCachePut(hql, regionName);
+    }
+
+    @Override
+    public void updateTimestampsCacheHit() {
+        delegate.updateTimestampsCacheHit();
+    }
+
+    @Override
+    public void updateTimestampsCacheMiss() {
+        delegate.updateTimestampsCacheMiss();
+    }
+
+    @Override
+    public void updateTimestampsCachePut() {
+        delegate.updateTimestampsCachePut();
+    }
+
+    @Override
+    public void queryPlanCacheHit(String hql) {
+        delegate.queryPlanCacheHit(hql);
+    }
+
+    @Override
+    public void queryCompiled(String hql, long microseconds) {
+        delegate.queryCompiled(hql, microseconds);
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return delegate.isStatisticsEnabled();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled) {
+        delegate.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public void logSummary() {
+        delegate.logSummary();
+    }
+
+    @Override
+    public EntityStatistics getEntityStatistics(String entityName) {
+        return delegate.getEntityStatistics(entityName);
+    }
+
+    @Override
+    public CollectionStatistics getCollectionStatistics(String role) {
+        return delegate.getCollectionStatistics(role);
+    }
+
+    @Override
+    public NaturalIdStatistics getNaturalIdStatistics(String entityName) {
+        return delegate.getNaturalIdStatistics(entityName);
+    }
+
+    @Override
+    public QueryStatistics getQueryStatistics(String queryString) {
+        return delegate.getQueryStatistics(queryString);
+    }
+
+    @Override
+    public CacheRegionStatistics getDomainDataRegionStatistics(String regionName) {
+        return delegate.getDomainDataRegionStatistics(regionName);
+    }
+
+    @Override
+    public CacheRegionStatistics getQueryRegionStatistics(String regionName) {
+        return delegate.getQueryRegionStatistics(regionName);
+    }
+
+    @Override
+    public CacheRegionStatistics getCacheRegionStatistics(String regionName) {
+        return delegate.getCacheRegionStatistics(regionName);
+    }
+
+    @Override
+    public long getEntityDeleteCount() {
+        return delegate.getEntityDeleteCount();
+    }
+
+    @Override
+    public long getEntityInsertCount() {
+        return delegate.getEntityInsertCount();
+    }
+
+    @Override
+    public long getEntityLoadCount() {
+        return delegate.getEntityLoadCount();
+    }
+
+    @Override
+    public long getEntityFetchCount() {
+        return delegate.getEntityFetchCount();
+    }
+
+    @Override
+    public long getEntityUpdateCount() {
+        return delegate.getEntityUpdateCount();
+    }
+
+    @Override
+    public long getQueryExecutionCount() {
+        return delegate.getQueryExecutionCount();
+    }
+
+    @Override
+    public long getQueryExecutionMaxTime() {
+        return delegate.getQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getQueryExecutionMaxTimeQueryString() {
+        return delegate.getQueryExecutionMaxTimeQueryString();
+    }
+
+    @Override
+    public long getQueryCacheHitCount() {
+        return delegate.getQueryCacheHitCount();
+    }
+
+    @Override
+    public long getQueryCacheMissCount() {
+        return delegate.getQueryCacheMissCount();
+    }
+
+    @Override
+    public long getQueryCachePutCount() {
+        return delegate.getQueryCachePutCount();
+    }
+
+    @Override
+    public long getNaturalIdQueryExecutionCount() {
+        return delegate.getNaturalIdQueryExecutionCount();
+    }
+
+    @Override
+    public long getNaturalIdQueryExecutionMaxTime() {
+        return delegate.getNaturalIdQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getNaturalIdQueryExecutionMaxTimeRegion() {
+        return delegate.getNaturalIdQueryExecutionMaxTimeRegion();
+    }
+
+    @Override
+    public String getNaturalIdQueryExecutionMaxTimeEntity() {
+        return delegate.getNaturalIdQueryExecutionMaxTimeEntity();
+    }
+
+    @Override
+    public long getNaturalIdCacheHitCount() {
+        return delegate.getNaturalIdCacheHitCount();
+    }
+
+    @Override
+    public long getNaturalIdCacheMissCount() {
+        return delegate.getNaturalIdCacheMissCount();
+    }
+
+    @Override
+    public long getNaturalIdCachePutCount() {
+        return delegate.getNaturalIdCachePutCount();
+    }
+
+    @Override
+    public long getUpdateTimestampsCacheHitCount() {
+        return delegate.getUpdateTimestampsCacheHitCount();
+    }
+
+    @Override
+    public long getUpdateTimestampsCacheMissCount() {
+        return delegate.getUpdateTimestampsCacheMissCount();
+    }
+
+    @Override
+    public long getUpdateTimestampsCachePutCount() {
+        return delegate.getUpdateTimestampsCachePutCount();
+    }
+
+    @Override
+    public long getFlushCount() {
+        return delegate.getFlushCount();
+    }
+
+    @Override
+    public long getConnectCount() {
+        return delegate.getConnectCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheHitCount() {
+        return delegate.getSecondLevelCacheHitCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheMissCount() {
+        return delegate.getSecondLevelCacheMissCount();
+    }
+
+    @Override
+    public long getSecondLevelCachePutCount() {
+        return delegate.getSecondLevelCachePutCount();
+    }
+
+    @Override
+    public long getSessionCloseCount() {
+        return delegate.getSessionCloseCount();
+    }
+
+    @Override
+    public long getSessionOpenCount() {
+        return delegate.getSessionOpenCount();
+    }
+
+    @Override
+    public long getCollectionLoadCount() {
+        return delegate.getCollectionLoadCount();
+    }
+
+    @Override
+    public long getCollectionFetchCount() {
+        return delegate.getCollectionFetchCount();
+    }
+
+    @Override
+    public long getCollectionUpdateCount() {
+        return delegate.getCollectionUpdateCount();
+    }
+
+    @Override
+    public long getCollectionRemoveCount() {
+        return delegate.getCollectionRemoveCount();
+    }
+
+    @Override
+    public long getCollectionRecreateCount() {
+        return delegate.getCollectionRecreateCount();
+    }
+
+    @Override
+    public long getStartTime() {
+        return delegate.getStartTime();
+    }
+
+    @Override
+    public String[] getQueries() {
+        return delegate.getQueries();
+    }
+
+    @Override
+    public String[] getEntityNames() {
+        return delegate.getEntityNames();
+    }
+
+    @Override
+    public String[] getCollectionRoleNames() {
+        return delegate.getCollectionRoleNames();
+    }
+
+    @Override
+    public String[] getSecondLevelCacheRegionNames() {
+        return delegate.getSecondLevelCacheRegionNames();
+    }
+
+    @Override
+    public long getSuccessfulTransactionCount() {
+        return delegate.getSuccessfulTransactionCount();
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return delegate.getTransactionCount();
+    }
+
+    @Override
+    public long getPrepareStatementCount() {
+        return delegate.getPrepareStatementCount();
+    }
+
+    @Override
+    public long getCloseStatementCount() {
+        return delegate.getCloseStatementCount();
+    }
+
+    @Override
+    public long getOptimisticFailureCount() {
+        return delegate.getOptimisticFailureCount();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public SecondLevelCacheStatistics getSecondLevelCacheStatistics(String regionName) {
+        return delegate.getSecondLevelCacheStatistics(regionName);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public NaturalIdCacheStatistics getNaturalIdCacheStatistics(String regionName) {
+        return delegate.getNaturalIdCacheStatistics(regionName);
+    }
+
+    @Override
+    public long getQueryPlanCacheHitCount() {
+        return delegate.getQueryPlanCacheHitCount();
+    }
+
+    @Override
+    public long getQueryPlanCacheMissCount() {
+        return delegate.getQueryPlanCacheMissCount();
+    }
+}
@@ -0,0 +1,229 @@
+package com.space.metrics;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * What a single request did to the database: the JDBC statements it ran and the
+ * Hibernate statistics it moved. Collection is bound to the thread between
+ * {@link #start()} and {@link #stop()}; outside of that every {@code record} call
+ * is a no-op, so the hooks in {@link TracingDataSource} and
+ * {@link RequestStatisticsFactory} cost a thread-local lookup when nobody is looking.
+ */
+public final class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+
+    private int statements;
+    private long statementNanos;
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private String mostRepeatedSql;
+    private int mostRepeatedCount;
+
+    private int entityLoads;
+    private int entityFetches;
+    private int collectionLoads;
+    private int collectionFetches;
+    private int flushes;
+    private int queries;
+    private int secondLevelCacheHits;
+    private int secondLevelCacheMisses;
+    private int queryCacheHits;
+    private int queryCacheMisses;
+
+    private RequestStatistics() {
+    }
+
+    /**
+     * Starts collecting on this thread, replacing whatever was collected before.
+     */
+    public static RequestStatistics start() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * The statistics collected on this thread, {@code null} when collection is off.
+     */
+    public static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void recordStatement(String sql, long nanos) {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics == null) return;
+        statistics.statements++;
+        statistics.statementNanos += nanos;
+        int executions = statistics.executionsBySql.merge(sql, 1, Integer::sum);
+        if (executions > statistics.mostRepeatedCount) {
+            statistics.mostRepeatedCount = executions;
+            statistics.mostRepeatedSql = sql;
+        }
+    }
+
+    static void recordEntityLoad() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) statistics.entityLoads++;
+    }
+
+    static void recordEntityFetch() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) statistics.entityFetches++;
+    }
+
+    static void recordCollectionLoad() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) statistics.collectionLoads++;
+    }
+
+    static void recordCollectionFetch() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) statistics.collectionFetches++;
+    }
+
+    static void recordFlush() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) statistics.flushes++;
+    }
+
+    static void recordQuery() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) statistics.queries++;
+    }
+
+    static void recordSecondLevelCache(boolean hit) {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics == null) return;
+        if (hit) {
+            statistics.secondLevelCacheHits++;
+        } else {
+            statistics.secondLevelCacheMisses++;
+        }
+    }
+
+    static void recordQueryCache(boolean hit) {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics == null) return;
+        if (hit) {
+            statistics.queryCacheHits++;
+        } else {
+            statistics.queryCacheMisses++;
+        }
+    }
+
+    /**
+     * JDBC statements run through {@link TracingDataSource}, Hibernate's and
+     * {@code JdbcTemplate}'s alike.
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getStatementNanos() {
+        return statementNanos;
+    }
+
+    /**
+     * The SQL run most often, the usual sign of an N+1 select; {@code null} without statements.
+     */
+    public String getMostRepeatedSql() {
+        return mostRepeatedSql;
+    }
+
+    public int getMostRepeatedCount() {
+        return mostRepeatedCount;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+
+    public int getEntityFetches() {
+        return entityFetches;
+    }
+
+    public int getCollectionLoads() {
+        return collectionLoads;
+    }
+
+    public int getCollectionFetches() {
+        return collectionFetches;
+    }
+
+    public int getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * HQL, JPQL and criteria queries executed by Hibernate.
+     */
+    public int getQueries() {
+        return queries;
+    }
+
+    public int getSecondLevelCacheHits() {
+        return secondLevelCacheHits;
+    }
+
+    public int getSecondLevelCacheMisses() {
+        return secondLevelCacheMisses;
+    }
+
+    public int getQueryCacheHits() {
+        return queryCacheHits;
+    }
+
+    public int getQueryCacheMisses() {
+        return queryCacheMisses;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * The statistics as a Server-Timing header value; counts go into the description
+     * since the header only has a duration of its own.
+     */
+    public String toServerTiming() {
+        return "db;dur=" + millis(statementNanos) + ";desc=\"" + statements + " statements\""
+                + ", db-repeat;desc=\"" + mostRepeatedCount + "\""
+                + ", hibernate-load;desc=\"" + (entityLoads + collectionLoads) + "\""
+                + ", hibernate-fetch;desc=\"" + (entityFetches + collectionFetches) + "\""
+                + ", hibernate-flush;desc=\"" + flushes + "\""
+                + ", hibernate-query;desc=\"" + queries + "\""
+                + ", l2c-hit;desc=\"" + secondLevelCacheHits + "\""
+                + ", l2c-miss;desc=\"" + secondLevelCacheMisses + "\""
+                + ", query-cache-hit;desc=\"" + queryCacheHits + "\""
+                + ", query-cache-miss;desc=\"" + queryCacheMisses + "\""
+                + ", app;dur=" + millis(getElapsedNanos());
+    }
+
+    @Override
+    public String toString() {
+        return "statements=" + statements
+                + ", most repeated=" + mostRepeatedCount + "x " + mostRepeatedSql
+                + ", entity loads=" + entityLoads
+                + ", entity fetches=" + entityFetches
+                + ", collection loads=" + collectionLoads
+                + ", collection fetches=" + collectionFetches
+                + ", flushes=" + flushes
+                + ", queries=" + queries
+                + ", L2 cache hits=" + secondLevelCacheHits
+                + ", L2 cache misses=" + secondLevelCacheMisses
+                + ", query cache hits=" + queryCacheHits
+                + ", query cache misses=" + queryCacheMisses;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,20 @@
+package com.space.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * Wraps the statistics Hibernate builds by default, which are global to the session
+ * factory, so that every event is also counted in the {@link RequestStatistics} of the
+ * calling thread. Registered through {@code hibernate.stats.factory}; Hibernate only
+ * reports events while {@code hibernate.generate_statistics} is on.
+ */
+public class RequestStatisticsFactory implements StatisticsFactory {
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new RequestCountingStatistics(new StatisticsImpl(sessionFactory));
+    }
+}
@@ -0,0 +1,111 @@
+package com.space.metrics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Diagnostic mode: collects the {@link RequestStatistics} of every request and
+ * sends them as a Server-Timing header. The header has to go out before the body,
+ * so it holds what was done up to the first byte of the body, which is all of the
+ * database work of a handler. Disabled, it passes requests straight through.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final String HEADER = "Server-Timing";
+
+    private final boolean enabled;
+
+    public ServerTimingFilter(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // a caller that is already collecting, such as a test, keeps its statistics
+        RequestStatistics statistics = RequestStatistics.current();
+        boolean owner = statistics == null;
+        if (owner) {
+            statistics = RequestStatistics.start();
+        }
+        ServerTimingResponse timed = new ServerTimingResponse(response, statistics);
+        try {
+            filterChain.doFilter(request, timed);
+            timed.addServerTiming();
+        } finally {
+            if (owner) {
+                RequestStatistics.stop();
+            }
+        }
+    }
+
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestStatistics statistics;
+        private boolean added;
+
+        ServerTimingResponse(HttpServletResponse response, RequestStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        void addServerTiming() {
+            if (added || isCommitted()) return;
+            added = true;
+            setHeader(HEADER, statistics.toServerTiming());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.space.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What {@link TracingDataSource} saw of every statement: execution count, time,
+ * bind count and rows per SQL text, and the last slow statements with their bind
+ * values in a ring buffer.
+ * <p>
+ * Bind values can be personal data, so the log and {@link #getSlowStatements()} only
+ * show their type, and the length of text, unless {@code sql.slow-log-binds} is on;
+ * even then they are cut at {@value #MAX_PARAMETER_LENGTH} characters.
+ * <p>
+ * A statement that took at least {@code sql.slow-threshold-ms} is logged. If it is a
+ * SELECT, UPDATE or DELETE, it is logged together with its EXPLAIN output, which a
+ * background thread asks the database for, with the same bind values, on a connection
+ * that is not traced. When the database is busy, EXPLAIN requests beyond a short
+ * queue are dropped rather than piling up, and those statements are logged without a plan.
+ */
+public class SqlTrace implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlTrace.class);
+
+    /**
+     * SQL texts tracked one by one; later ones are counted together, so statements with
+     * generated text (IN lists of every length) cannot grow the map without bound.
+     */
+    private static final int MAX_STATEMENTS = 500;
+    private static final String OTHER_STATEMENTS = "(other)";
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final ConcurrentMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final SlowStatement[] slowStatements;
+    private final AtomicLong slowCount = new AtomicLong();
+    private final long slowThresholdNanos;
+    private final boolean showBinds;
+    private final ExecutorService explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(16), runnable -> {
+        Thread thread = new Thread(runnable, "sql-explain");
+        thread.setDaemon(true);
+        return thread;
+    }, (task, executor) -> log(((ExplainTask) task).slow));
+
+    private volatile DataSource explainDataSource;
+
+    /**
+     * @param showBinds log and return the bind values of slow statements instead of their types
+     */
+    public SqlTrace(long slowThresholdMillis, int slowLogSize, boolean showBinds) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.slowStatements = new SlowStatement[slowLogSize];
+        this.showBinds = showBinds;
+    }
+
+    /**
+     * @param dataSource where EXPLAIN runs; must not be traced itself
+     */
+    void setExplainDataSource(DataSource dataSource) {
+        this.explainDataSource = dataSource;
+    }
+
+    /**
+     * @param parameters bind values by index, starting at 1; may be shorter than the bind count
+     * @param rows       rows fetched by a query or changed by an update
+     */
+    void record(String sql, Object[] parameters, int binds, long nanos, long rows) {
+        StatementStats stats = statements.get(sql);
+        if (stats == null) {
+            stats = statements.size() < MAX_STATEMENTS
+                    ? statements.computeIfAbsent(sql, key -> new StatementStats())
+                    : statements.computeIfAbsent(OTHER_STATEMENTS, key -> new StatementStats());
+        }
+        stats.nanos.record(nanos);
+        stats.rows.add(rows);
+        stats.binds = binds;
+
+        if (nanos >= slowThresholdNanos && slowStatements.length > 0) {
+            SlowStatement slow = new SlowStatement(System.currentTimeMillis(), sql, parameters, binds, nanos, rows);
+            slowStatements[(int) (slowCount.getAndIncrement() % slowStatements.length)] = slow;
+            if (explainDataSource != null && isExplainable(sql)) {
+                explainer.execute(new ExplainTask(slow));
+            } else {
+                log(slow);
+            }
+        }
+    }
+
+    /**
+     * @return per SQL text, the slowest total time first
+     */
+    public List<Map<String, Object>> getStatements() {
+        List<Map.Entry<String, StatementStats>> entries = new ArrayList<>(statements.entrySet());
+        entries.sort(Comparator.comparingLong(
+                (Map.Entry<String, StatementStats> entry) -> entry.getValue().nanos.getSum()).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(entries.size());
+        for (Map.Entry<String, StatementStats> entry : entries) {
+            StatementStats stats = entry.getValue();
+            long count = stats.nanos.getCount();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sql", entry.getKey());
+            map.put("count", count);
+            map.put("binds", stats.binds);
+            map.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(stats.nanos.getSum()));
+            map.put("meanMicros", TimeUnit.NANOSECONDS.toMicros((long) stats.nanos.getMean()));
+            map.put("p99Micros", TimeUnit.NANOSECONDS.toMicros(stats.nanos.getValueAtPercentile(99)));
+            map.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(stats.nanos.getMax()));
+            map.put("rows", stats.rows.sum());
+            map.put("meanRows", count == 0 ? 0 : stats.rows.sum() / count);
+            result.add(map);
+        }
+        return result;
+    }
+
+    /**
+     * @return the slow statements still in the ring buffer, the latest first
+     */
+    public List<Map<String, Object>> getSlowStatements() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        long next = slowCount.get();
+        for (long i = next - 1; i >= Math.max(0, next - slowStatements.length); i--) {
+            SlowStatement slow = slowStatements[(int) (i % slowStatements.length)];
+            if (slow != null) result.add(slow.toMap(showBinds));
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        explainer.shutdownNow();
+    }
+
+    private void explainAndLog(SlowStatement slow) {
+        try (Connection connection = explainDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + slow.sql)) {
+            for (int i = 0; i < slow.parameters.length; i++) {
+                statement.setObject(i + 1, slow.parameters[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                slow.plan = formatPlan(resultSet);
+            }
+        } catch (SQLException e) {
+            slow.plan = "EXPLAIN failed: " + e.getMessage();
+        }
+        log(slow);
+    }
+
+    private void log(SlowStatement slow) {
+        if (slow.plan == null) {
+            LOGGER.warn("Slow statement, {} ms, {} rows: {} {}", TimeUnit.NANOSECONDS.toMillis(slow.nanos),
+                    slow.rows, slow.sql, slow.parameterList(showBinds));
+        } else {
+            LOGGER.warn("Slow statement, {} ms, {} rows: {} {}\n{}", TimeUnit.NANOSECONDS.toMillis(slow.nanos),
+                    slow.rows, slow.sql, slow.parameterList(showBinds), slow.plan);
+        }
+    }
+
+    /**
+     * One line per plan row, as {@code column=value} pairs; this fits both the tabular
+     * EXPLAIN of MySQL and the single PLAN column of H2.
+     */
+    private static String formatPlan(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        StringBuilder plan = new StringBuilder();
+        while (resultSet.next()) {
+            if (plan.length() > 0) plan.append('\n');
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                if (column > 1) plan.append(", ");
+                plan.append(metaData.getColumnLabel(column)).append('=').append(resultSet.getString(column));
+            }
+        }
+        return plan.toString();
+    }
+
+    private static boolean isExplainable(String sql) {
+        String start = sql.trim().toLowerCase(Locale.ROOT);
+        return start.startsWith("select") || start.startsWith("update") || start.startsWith("delete");
+    }
+
+    private final class ExplainTask implements Runnable {
+
+        final SlowStatement slow;
+
+        ExplainTask(SlowStatement slow) {
+            this.slow = slow;
+        }
+
+        @Override
+        public void run() {
+            explainAndLog(slow);
+        }
+    }
+
+    private static final class StatementStats {
+
+        final LatencyHistogram nanos = new LatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        volatile int binds;
+    }
+
+    private static final class SlowStatement {
+
+        final long timestamp;
+        final String sql;
+        final Object[] parameters;
+        final int binds;
+        final long nanos;
+        final long rows;
+        volatile String plan;
+
+        SlowStatement(long timestamp, String sql, Object[] parameters, int binds, long nanos, long rows) {
+            this.timestamp = timestamp;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.binds = binds;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+
+        List<String> parameterList(boolean showBinds) {
+            List<String> list = new ArrayList<>(parameters.length);
+            for (Object parameter : parameters) {
+                list.add(showBinds ? truncate(String.valueOf(parameter)) : mask(parameter));
+            }
+            return list;
+        }
+
+        private static String truncate(String text) {
+            return text.length() > MAX_PARAMETER_LENGTH ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : text;
+        }
+
+        /**
+         * {@code String(5)} for a five character string, the type for anything else.
+         */
+        private static String mask(Object parameter) {
+            if (parameter == null) return "null";
+            String type = parameter.getClass().getSimpleName();
+            return parameter instanceof CharSequence ? type + "(" + ((CharSequence) parameter).length() + ")" : type;
+        }
+
+        Map<String, Object> toMap(boolean showBinds) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("timestamp", timestamp);
+            map.put("sql", sql);
+            map.put("parameters", parameterList(showBinds));
+            map.put("binds", binds);
+            map.put("micros", TimeUnit.NANOSECONDS.toMicros(nanos));
+            map.put("rows", rows);
+            map.put("plan", plan == null ? null : Arrays.asList(plan.split("\n")));
+            return map;
+        }
+    }
+}
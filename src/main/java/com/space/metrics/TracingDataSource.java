@@ -0,0 +1,202 @@
+package com.space.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Hands out connections whose statements report their SQL, bind values, execution
+ * time and rows to {@link SqlTrace}. The time of a query is the execute call plus
+ * every {@code ResultSet.next()}, so it covers fetching the rows but not what the
+ * caller does with them; it is recorded when the result set or the statement closes,
+ * also in the {@link RequestStatistics} of the thread that closes it.
+ * <p>
+ * Closing it closes the pool or shuts down the embedded database it wraps.
+ */
+public class TracingDataSource extends DelegatingDataSource implements Closeable {
+
+    private final SqlTrace trace;
+
+    public TracingDataSource(DataSource targetDataSource, SqlTrace trace) {
+        super(targetDataSource);
+        this.trace = trace;
+        trace.setExplainDataSource(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trace(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trace(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws IOException {
+        DataSource target = getTargetDataSource();
+        if (target instanceof Closeable) {
+            ((Closeable) target).close();
+        } else if (target instanceof EmbeddedDatabase) {
+            ((EmbeddedDatabase) target).shutdown();
+        }
+    }
+
+    private Connection trace(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement) {
+                        String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                        return Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                                new Class<?>[]{method.getReturnType()}, new StatementHandler((Statement) result, sql));
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A statement execution; queries stay open until their rows are read.
+     */
+    private final class Execution {
+
+        final String sql;
+        final Object[] parameters;
+        long nanos;
+        long rows;
+        boolean recorded;
+
+        Execution(String sql, Object[] parameters, long nanos) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.nanos = nanos;
+        }
+
+        void finish() {
+            if (recorded) return;
+            recorded = true;
+            String text = sql == null ? "(unknown)" : sql;
+            trace.record(text, parameters, parameters.length, nanos, rows);
+            RequestStatistics.recordStatement(text, nanos);
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private Object[] parameters = new Object[0];
+        private Execution open;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (target instanceof PreparedStatement && name.startsWith("set")
+                    && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters = new Object[0];
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            } else if (name.equals("getResultSet")) {
+                ResultSet resultSet = (ResultSet) TracingDataSource.invoke(target, method, args);
+                return resultSet == null || open == null ? resultSet : traceRows(resultSet, open);
+            } else if (name.equals("close")) {
+                finishOpen();
+            }
+            return TracingDataSource.invoke(target, method, args);
+        }
+
+        private void bind(int index, Object value) {
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, index);
+            }
+            parameters[index - 1] = value;
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishOpen();
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            long start = System.nanoTime();
+            Object result = TracingDataSource.invoke(target, method, args);
+            Execution execution = new Execution(sql, parameters.clone(), System.nanoTime() - start);
+
+            if (result instanceof ResultSet) {
+                open = execution;
+                return traceRows((ResultSet) result, execution);
+            }
+            if (Boolean.TRUE.equals(result)) {
+                // rows come with getResultSet()
+                open = execution;
+                return result;
+            }
+            execution.rows = updateCount(result);
+            execution.finish();
+            return result;
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish();
+                open = null;
+            }
+        }
+
+        private ResultSet traceRows(ResultSet resultSet, Execution execution) {
+            return (ResultSet) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("next")) {
+                            long start = System.nanoTime();
+                            Object hasRow = TracingDataSource.invoke(resultSet, method, args);
+                            execution.nanos += System.nanoTime() - start;
+                            if (Boolean.TRUE.equals(hasRow)) execution.rows++;
+                            return hasRow;
+                        }
+                        if (method.getName().equals("close")) {
+                            execution.finish();
+                        }
+                        return TracingDataSource.invoke(resultSet, method, args);
+                    });
+        }
+    }
+
+    private static long updateCount(Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        long rows = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) rows += Math.max(count, 0);
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) rows += Math.max(count, 0);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,77 @@
+package com.space.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * The ship rating {@code 80 * speed * k / (currentYear + 1 - prodYear)}, rounded to two
+ * decimals, with {@code k = 0.5} for used ships. The current year of the fleet is
+ * configured ({@code rating.current-year}); when it moves on, every stored rating is
+ * stale until the recalculation job has run.
+ * <p>
+ * Works on primitives only and finds the production year in a table of year starts
+ * instead of a {@code Calendar}, so a call allocates nothing. The table is built for
+ * the default time zone at class load, the zone {@code Calendar.getInstance()} used;
+ * dates outside it fall back to {@code java.time}. Results are bit-identical to the
+ * old {@code Calendar} based code.
+ */
+public final class RatingCalculator {
+
+    static final int FIRST_TABLE_YEAR = 2700;
+    static final int LAST_TABLE_YEAR = 3100;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /**
+     * Epoch millis of January 1st, 00:00 in {@link #ZONE} of every table year,
+     * plus the start of the year after the last one.
+     */
+    private static final long[] YEAR_STARTS = new long[LAST_TABLE_YEAR - FIRST_TABLE_YEAR + 2];
+
+    static {
+        for (int i = 0; i < YEAR_STARTS.length; i++) {
+            YEAR_STARTS[i] = LocalDate.of(FIRST_TABLE_YEAR + i, 1, 1)
+                    .atStartOfDay(ZONE).toInstant().toEpochMilli();
+        }
+    }
+
+    private final int currentYear;
+
+    public RatingCalculator(int currentYear) {
+        this.currentYear = currentYear;
+    }
+
+    /**
+     * The last year a ship can be produced in.
+     */
+    public int getCurrentYear() {
+        return currentYear;
+    }
+
+    /**
+     * The year the rating formula counts the age of a ship from.
+     */
+    public int getRatingYear() {
+        return currentYear + 1;
+    }
+
+    public double rating(double speed, boolean isUsed, long prodDateMillis) {
+        double k = isUsed ? 0.5 : 1;
+        double rating = 80 * speed * k / (getRatingYear() - yearOf(prodDateMillis));
+        return Math.round(rating * 100) / 100D;
+    }
+
+    /**
+     * The calendar year of the instant in the default time zone.
+     */
+    public static int yearOf(long epochMillis) {
+        if (epochMillis < YEAR_STARTS[0] || epochMillis >= YEAR_STARTS[YEAR_STARTS.length - 1]) {
+            return Instant.ofEpochMilli(epochMillis).atZone(ZONE).getYear();
+        }
+        int index = Arrays.binarySearch(YEAR_STARTS, epochMillis);
+        // an exact hit is the first millisecond of that year, otherwise take the year before the insertion point
+        return FIRST_TABLE_YEAR + (index >= 0 ? index : -index - 2);
+    }
+}
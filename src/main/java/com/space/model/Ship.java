@@ -1,11 +1,19 @@
 package com.space.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
 @Table(name = "ship")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class Ship {
 
     @Id
@@ -30,6 +38,13 @@ public class Ship {
 
     private Double rating;
 
+    /**
+     * Sent as the ETag of the ship instead of in the body.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     public Ship(Long id, String name, String planet,
                 ShipType shipType, Date prodDate,
                 Boolean isUsed, Double speed,
@@ -132,4 +147,12 @@ public class Ship {
     public void setRating(Double rating) {
         this.rating = rating;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,170 @@
+package com.space.repository;
+
+import com.space.model.RatingCalculator;
+import com.space.model.Ship;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plain JDBC access to the ship table for set-based work that Hibernate
+ * cannot batch, such as inserts of entities with IDENTITY ids. Nothing done
+ * here is seen by the persistence context or the cached ships; cached queries
+ * are invalidated through {@link ShipQuerySpace}.
+ */
+@Repository
+public class ShipJdbcRepository {
+
+    private static final String DELETE_SQL = "DELETE FROM ship WHERE id = ?";
+    private static final String DELETE_VERSION_SQL = "DELETE FROM ship WHERE id = ? AND version = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * H2 gives a bare parameter the type of the other operand, so {@code 80 * ?} would be integer math.
+     */
+    private static final String DOUBLE_PARAMETER = "CAST(? AS DOUBLE)";
+
+    private JdbcTemplate jdbcTemplate;
+    private RatingCalculator ratingCalculator;
+    private ShipQuerySpace querySpace;
+
+    @Autowired
+    public ShipJdbcRepository(JdbcTemplate jdbcTemplate, RatingCalculator ratingCalculator,
+                              ShipQuerySpace querySpace) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ratingCalculator = ratingCalculator;
+        this.querySpace = querySpace;
+    }
+
+    /**
+     * Inserts the ships as one JDBC batch; their ids are left unset.
+     */
+    public void insertAll(List<Ship> ships) {
+        querySpace.write(() -> jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Ship ship = ships.get(i);
+                statement.setString(1, ship.getName());
+                statement.setString(2, ship.getPlanet());
+                statement.setString(3, ship.getShipType().name());
+                statement.setDate(4, new java.sql.Date(ship.getProdDate().getTime()));
+                statement.setBoolean(5, ship.getUsed());
+                statement.setDouble(6, ship.getSpeed());
+                statement.setInt(7, ship.getCrewSize());
+                statement.setDouble(8, ship.getRating());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ships.size();
+            }
+        }));
+    }
+
+    public void insert(Ship ship) {
+        insertAll(Collections.singletonList(ship));
+    }
+
+    /**
+     * @param expectedVersion only delete the ship at this version, {@code null} for any
+     * @return the number of deleted rows, 0 if there is no such ship
+     */
+    public int deleteById(long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return querySpace.write(id, () -> jdbcTemplate.update(DELETE_SQL, id));
+        }
+        return querySpace.write(id, () -> jdbcTemplate.update(DELETE_VERSION_SQL, id, expectedVersion));
+    }
+
+    /**
+     * Sets only the non-null fields of {@code changes} on one ship, plus the rating when
+     * speed, isUsed or prodDate change, with a single UPDATE; {@code changes.getRating()}
+     * is ignored. The rating is computed by the statement from the new values and the
+     * current row, so there is no read-modify-write window. The version is incremented.
+     *
+     * @param expectedVersion only update the ship at this version, {@code null} for any
+     * @return the number of updated rows, 0 if there is no such ship
+     */
+    public int updateById(long id, Ship changes, Long expectedVersion) {
+        List<String> assignments = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (changes.getName() != null) {
+            assignments.add("name = ?");
+            args.add(changes.getName());
+        }
+        if (changes.getPlanet() != null) {
+            assignments.add("planet = ?");
+            args.add(changes.getPlanet());
+        }
+        if (changes.getShipType() != null) {
+            assignments.add("shipType = ?");
+            args.add(changes.getShipType().name());
+        }
+        if (changes.getProdDate() != null) {
+            assignments.add("prodDate = ?");
+            args.add(new java.sql.Date(changes.getProdDate().getTime()));
+        }
+        if (changes.getUsed() != null) {
+            assignments.add("isUsed = ?");
+            args.add(changes.getUsed());
+        }
+        if (changes.getSpeed() != null) {
+            assignments.add("speed = ?");
+            args.add(changes.getSpeed());
+        }
+        if (changes.getCrewSize() != null) {
+            assignments.add("crewSize = ?");
+            args.add(changes.getCrewSize());
+        }
+        if (changes.getSpeed() != null || changes.getUsed() != null || changes.getProdDate() != null) {
+            assignments.add("rating = " + ratingSql(changes, args));
+        }
+        if (assignments.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to update");
+        }
+        assignments.add("version = version + 1");
+
+        String sql = "UPDATE ship SET " + String.join(", ", assignments) + " WHERE id = ?";
+        args.add(id);
+        if (expectedVersion != null) {
+            sql += " AND version = ?";
+            args.add(expectedVersion);
+        }
+        String statement = sql;
+        return querySpace.write(id, () -> jdbcTemplate.update(statement, args.toArray()));
+    }
+
+    /**
+     * The rating formula of {@code RatingCalculator} in SQL. Columns that the
+     * same statement changes are replaced by their new values: MySQL would read the
+     * already updated column, H2 the old one.
+     */
+    private String ratingSql(Ship changes, List<Object> args) {
+        String speed = "speed";
+        if (changes.getSpeed() != null) {
+            speed = DOUBLE_PARAMETER;
+            args.add(changes.getSpeed());
+        }
+        String k = "CASE WHEN isUsed = TRUE THEN 0.5 ELSE 1 END";
+        if (changes.getUsed() != null) {
+            k = DOUBLE_PARAMETER;
+            args.add(changes.getUsed() ? 0.5 : 1.0);
+        }
+        String age = "(" + ratingCalculator.getRatingYear() + " - YEAR(prodDate))";
+        if (changes.getProdDate() != null) {
+            age = DOUBLE_PARAMETER;
+            int prodYear = RatingCalculator.yearOf(changes.getProdDate().getTime());
+            args.add((double) (ratingCalculator.getRatingYear() - prodYear));
+        }
+        return "FLOOR(80 * " + speed + " * " + k + " / " + age + " * 100 + 0.5) / 100";
+    }
+}
@@ -0,0 +1,109 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.function.Supplier;
+
+/**
+ * Tells the query cache about ship rows written with plain JDBC, the way Hibernate
+ * does for its own writes: the ship table is stamped in the update timestamps region
+ * as changing before the statement and stamped again once its transaction completes.
+ * A query that read the old rows, even one that puts its result after the commit, is
+ * then older than the stamp and never served. A write to one ship also soft-locks
+ * that ship in the entity region for the same span, so a concurrent load cannot put
+ * back the row it read before the statement.
+ */
+@Component
+public class ShipQuerySpace implements DisposableBean {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final EntityPersister persister;
+    private final Serializable[] spaces;
+    /**
+     * Only handed to the caches, which read the factory, tenant and event listeners
+     * off it; it never opens a connection, so one instance serves every thread.
+     */
+    private final StatelessSession cacheSession;
+
+    @Autowired
+    public ShipQuerySpace(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.persister = sessionFactory.getMetamodel().entityPersister(Ship.class);
+        this.spaces = persister.getQuerySpaces();
+        this.cacheSession = sessionFactory.openStatelessSession();
+    }
+
+    /**
+     * Runs {@code statement}, which writes to the ship table, invalidating the cached
+     * ship queries around it: after the commit inside a transaction, right away without one.
+     */
+    public <T> T write(Supplier<T> statement) {
+        return write(null, statement);
+    }
+
+    /**
+     * Runs {@code statement}, which writes to the ship {@code id} only, invalidating the
+     * cached ship queries and the cached ship around it. The ship stays locked until the
+     * transaction completes; loads that started before then are not cached.
+     */
+    public <T> T write(long id, Supplier<T> statement) {
+        return write(Long.valueOf(id), statement);
+    }
+
+    private <T> T write(Long id, Supplier<T> statement) {
+        boolean queryCacheEnabled = sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled();
+        EntityDataAccess entityAccess = id == null ? null : persister.getCacheAccessStrategy();
+        if (!queryCacheEnabled && entityAccess == null) {
+            return statement.get();
+        }
+        SharedSessionContractImplementor session = (SharedSessionContractImplementor) cacheSession;
+        Object key = entityAccess == null ? null : entityAccess.generateCacheKey(id, persister, sessionFactory, null);
+        SoftLock lock = entityAccess == null ? null : entityAccess.lockItem(session, key, null);
+        if (queryCacheEnabled) {
+            sessionFactory.getCache().getTimestampsCache().preInvalidate(spaces, session);
+        }
+        Runnable release = () -> {
+            if (entityAccess != null) {
+                entityAccess.unlockItem(session, key, lock);
+            }
+            if (queryCacheEnabled) {
+                sessionFactory.getCache().getTimestampsCache().invalidate(spaces, session);
+            }
+        };
+
+        boolean synchronizedWithTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if (synchronizedWithTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    release.run();
+                }
+            });
+        }
+        try {
+            return statement.get();
+        } finally {
+            if (!synchronizedWithTransaction) {
+                release.run();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        cacheSession.close();
+    }
+}
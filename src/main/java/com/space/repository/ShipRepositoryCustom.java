@@ -0,0 +1,49 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ShipRepositoryCustom {
+
+    /**
+     * Returns a single page of ships without the extra COUNT query that
+     * {@code findAll(Specification, Pageable)} issues to build a {@code Page}.
+     */
+    List<Ship> findPage(Specification<Ship> spec, Pageable pageable);
+
+    /**
+     * Same as {@code count(Specification)}, but the result goes to the query cache.
+     */
+    long countMatching(Specification<Ship> spec);
+
+    /**
+     * Hands every matching ship to {@code consumer} in {@code sort} order, reading them
+     * through a forward-only cursor {@code fetchSize} rows at a time. The ships are
+     * detached from the persistence context as the scroll moves on, so memory does not
+     * grow with the result. Must be called inside a transaction.
+     */
+    void scanMatching(Specification<Ship> spec, Sort sort, int fetchSize, Consumer<Ship> consumer);
+
+    /**
+     * Sets the non-null fields of {@code changes} on every matching ship with a single
+     * UPDATE statement. When speed, isUsed or prodDate change the rating is recomputed
+     * by the same statement; {@code changes.getRating()} is ignored. The version of every
+     * updated ship is incremented. Must be called inside a transaction.
+     *
+     * @return the number of updated ships
+     */
+    int updateMatching(Specification<Ship> spec, Ship changes);
+
+    /**
+     * Deletes every matching ship with a single DELETE statement.
+     * Must be called inside a transaction.
+     *
+     * @return the number of deleted ships
+     */
+    int deleteMatching(Specification<Ship> spec);
+}
@@ -0,0 +1,211 @@
+package com.space.repository;
+
+import com.space.model.RatingCalculator;
+import com.space.model.Ship;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class ShipRepositoryImpl implements ShipRepositoryCustom {
+
+    /**
+     * Larger pages are not put in the query cache. A cached page only holds ids, so each
+     * one must still find its ships in the entity region: the query region's entry count
+     * times this is what ehcache.xml sizes the Ship region for.
+     */
+    private static final int MAX_CACHED_PAGE_SIZE = 20;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RatingCalculator ratingCalculator;
+
+    @Override
+    public List<Ship> findPage(Specification<Ship> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) query.where(predicate);
+        }
+        query.select(root).orderBy(toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Ship> typedQuery = entityManager.createQuery(query)
+                .setHint(QueryHints.CACHEABLE, pageable.isPaged() && pageable.getPageSize() <= MAX_CACHED_PAGE_SIZE);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public long countMatching(Specification<Ship> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) query.where(predicate);
+        }
+        query.select(cb.count(root));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.CACHEABLE, true)
+                .getSingleResult();
+    }
+
+    @Override
+    public void scanMatching(Specification<Ship> spec, Sort sort, int fetchSize, Consumer<Ship> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) query.where(predicate);
+        }
+        query.select(root).orderBy(toOrders(sort, root, cb));
+
+        Session session = entityManager.unwrap(Session.class);
+        Query<Ship> scrollQuery = entityManager.createQuery(query).unwrap(Query.class);
+        // a one-off full scan must not push the hot ships out of the second-level cache
+        scrollQuery.setCacheMode(CacheMode.IGNORE)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize);
+
+        try (ScrollableResults results = scrollQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            int inSession = 0;
+            while (results.next()) {
+                consumer.accept((Ship) results.get(0));
+                if (++inSession == fetchSize) {
+                    session.clear();
+                    inSession = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int updateMatching(Specification<Ship> spec, Ship changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ship> update = cb.createCriteriaUpdate(Ship.class);
+        Root<Ship> root = update.from(Ship.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, null, cb);
+            if (predicate != null) update.where(predicate);
+        }
+
+        Map<ParameterExpression<?>, Object> values = new HashMap<>();
+        if (changes.getName() != null) {
+            update.set(root.<String>get("name"), bind(cb, values, String.class, changes.getName()));
+        }
+        if (changes.getPlanet() != null) {
+            update.set(root.<String>get("planet"), bind(cb, values, String.class, changes.getPlanet()));
+        }
+        if (changes.getShipType() != null) {
+            update.set(root.get("shipType"), changes.getShipType());
+        }
+        if (changes.getProdDate() != null) {
+            update.set(root.<java.util.Date>get("prodDate"),
+                    bind(cb, values, java.util.Date.class, new java.sql.Date(changes.getProdDate().getTime())));
+        }
+        if (changes.getUsed() != null) {
+            update.set(root.<Boolean>get("isUsed"), bind(cb, values, Boolean.class, changes.getUsed()));
+        }
+        if (changes.getSpeed() != null) {
+            update.set(root.<Double>get("speed"), bind(cb, values, Double.class, changes.getSpeed()));
+        }
+        if (changes.getCrewSize() != null) {
+            update.set(root.<Integer>get("crewSize"), bind(cb, values, Integer.class, changes.getCrewSize()));
+        }
+        if (changes.getSpeed() != null || changes.getUsed() != null || changes.getProdDate() != null) {
+            update.set(root.<Double>get("rating"), rating(cb, root, changes, values));
+        }
+        // a bulk statement bypasses Hibernate's version check, but must still invalidate stale ETags
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+
+        javax.persistence.Query query = entityManager.createQuery(update);
+        setParameters(query, values);
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int deleteMatching(Specification<Ship> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Ship> delete = cb.createCriteriaDelete(Ship.class);
+        Root<Ship> root = delete.from(Ship.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, null, cb);
+            if (predicate != null) delete.where(predicate);
+        }
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    /**
+     * The rating formula of {@code RatingCalculator} as an SQL expression:
+     * {@code floor(80 * speed * k / (3020 - year(prodDate)) * 100 + 0.5) / 100}, with the
+     * columns being changed replaced by their new values. The values are bound as doubles,
+     * so the database computes in the same floating point arithmetic as the Java code.
+     */
+    @SuppressWarnings("unchecked")
+    private Expression<Double> rating(CriteriaBuilder cb, Root<Ship> root, Ship changes,
+                                             Map<ParameterExpression<?>, Object> values) {
+        Expression<Double> speed = changes.getSpeed() != null
+                ? bind(cb, values, Double.class, changes.getSpeed())
+                : root.get("speed");
+        Expression<Double> k = changes.getUsed() != null
+                ? bind(cb, values, Double.class, changes.getUsed() ? 0.5 : 1.0)
+                : cb.<Double>selectCase().when(cb.isTrue(root.get("isUsed")), 0.5).otherwise(1.0);
+        Expression<? extends Number> age;
+        if (changes.getProdDate() != null) {
+            int prodYear = RatingCalculator.yearOf(changes.getProdDate().getTime());
+            age = bind(cb, values, Double.class, (double) (ratingCalculator.getRatingYear() - prodYear));
+        } else {
+            age = cb.diff(ratingCalculator.getRatingYear(), cb.function("year", Integer.class, root.get("prodDate")));
+        }
+
+        Expression<Number> rating = cb.quot(cb.prod(cb.prod(80.0, speed), k), age);
+        Expression<Double> scaled = cb.function("floor", Double.class,
+                cb.sum(cb.prod(rating, (Number) 100.0), (Number) 0.5));
+        return (Expression<Double>) (Expression<?>) cb.quot(scaled, 100.0);
+    }
+
+    private static <T> ParameterExpression<T> bind(CriteriaBuilder cb, Map<ParameterExpression<?>, Object> values,
+                                                   Class<T> type, T value) {
+        // named, Hibernate does not resolve unnamed parameters of a CriteriaUpdate
+        ParameterExpression<T> parameter = cb.parameter(type, "p" + values.size());
+        values.put(parameter, value);
+        return parameter;
+    }
+
+    private static void setParameters(javax.persistence.Query query, Map<ParameterExpression<?>, Object> values) {
+        values.forEach((parameter, value) -> query.setParameter(parameter.getName(), value));
+    }
+}
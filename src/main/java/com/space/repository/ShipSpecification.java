@@ -0,0 +1,119 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * Builds the WHERE clause for the ship list filters, so that filtering
+ * happens in the database instead of over {@code findAll()} in the service.
+ * Every {@code null} argument is simply left out of the predicate.
+ */
+public final class ShipSpecification {
+
+    private ShipSpecification() {
+    }
+
+    public static Specification<Ship> byFilter(String name, String planet, ShipType shipType,
+                                               Long after, Long before, Boolean isUsed, Double minSpeed,
+                                               Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
+                                               Double minRating, Double maxRating) {
+        return Specification.where(nameContains(name))
+                .and(planetContains(planet))
+                .and(shipTypeIs(shipType))
+                .and(producedAfter(after))
+                .and(producedBefore(before))
+                .and(usedIs(isUsed))
+                .and(speedBetween(minSpeed, maxSpeed))
+                .and(crewSizeBetween(minCrewSize, maxCrewSize))
+                .and(ratingBetween(minRating, maxRating));
+    }
+
+    public static Specification<Ship> nameContains(String name) {
+        if (name == null) return null;
+        return (root, query, cb) -> cb.like(root.get("name"), "%" + escapeLike(name) + "%", '\\');
+    }
+
+    public static Specification<Ship> planetContains(String planet) {
+        if (planet == null) return null;
+        return (root, query, cb) -> cb.like(root.get("planet"), "%" + escapeLike(planet) + "%", '\\');
+    }
+
+    public static Specification<Ship> shipTypeIs(ShipType shipType) {
+        if (shipType == null) return null;
+        return (root, query, cb) -> cb.equal(root.get("shipType"), shipType);
+    }
+
+    /**
+     * A ship counts as produced at midnight of its prodDate, as when ships were filtered
+     * in memory; binding the bound as is would let the DATE column drop its time of day.
+     */
+    public static Specification<Ship> producedAfter(Long after) {
+        if (after == null) return null;
+        LocalDateTime bound = toLocalDateTime(after);
+        LocalDate firstDay = bound.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? bound.toLocalDate() : bound.toLocalDate().plusDays(1);
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("prodDate"), Date.valueOf(firstDay));
+    }
+
+    public static Specification<Ship> producedBefore(Long before) {
+        if (before == null) return null;
+        LocalDate lastDay = toLocalDateTime(before).toLocalDate();
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("prodDate"), Date.valueOf(lastDay));
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    public static Specification<Ship> usedIs(Boolean isUsed) {
+        if (isUsed == null) return null;
+        return (root, query, cb) -> cb.equal(root.get("isUsed"), isUsed);
+    }
+
+    public static Specification<Ship> speedBetween(Double min, Double max) {
+        return between("speed", min, max);
+    }
+
+    public static Specification<Ship> crewSizeBetween(Integer min, Integer max) {
+        return between("crewSize", min, max);
+    }
+
+    public static Specification<Ship> ratingBetween(Double min, Double max) {
+        return between("rating", min, max);
+    }
+
+    /**
+     * Keyset predicate: rows strictly after the given (field value, id) position
+     * of a list ordered by {@code field} and then by id.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Specification<Ship> seek(String field, Comparable value, long id) {
+        if (value == null) {
+            return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+        }
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get(field), value),
+                cb.and(cb.equal(root.get(field), value), cb.greaterThan(root.get("id"), id)));
+    }
+
+    private static <T extends Comparable<? super T>> Specification<Ship> between(String field, T min, T max) {
+        if (min == null && max == null) return null;
+        return (root, query, cb) -> {
+            if (min == null) return cb.lessThanOrEqualTo(root.get(field), max);
+            if (max == null) return cb.greaterThanOrEqualTo(root.get(field), min);
+            return cb.between(root.get(field), min, max);
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
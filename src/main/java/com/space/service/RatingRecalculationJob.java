@@ -0,0 +1,384 @@
+package com.space.service;
+
+import com.space.dto.RatingRecalculationStatus;
+import com.space.dto.RatingRecalculationStatus.State;
+import com.space.model.RatingCalculator;
+import com.space.model.Ship;
+import com.space.repository.ShipQuerySpace;
+import com.space.service.index.FleetIndex;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recalculates every stored rating for the configured current year, after
+ * {@code rating.current-year} has moved on.
+ * <p>
+ * The ship table is read in id order, {@code rating.job.chunk-size} rows at a time, into
+ * primitive arrays. The ratings of a chunk are computed on a fork-join pool that only
+ * exists while a run does, and the changed ones are written back with one JDBC batch. The checkpoint
+ * (table {@code rating_recalculation}) commits in the same transaction, so a run that
+ * was interrupted resumes after the last committed chunk.
+ * <p>
+ * A rating is only written if the ship still has the version it was read with; a ship
+ * updated meanwhile already got its rating from the same calculator.
+ */
+@Service
+public class RatingRecalculationJob implements DisposableBean {
+
+    private static final String SELECT_CHUNK_SQL = "SELECT id, speed, isUsed, prodDate, rating, version FROM ship " +
+            "WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_RATING_SQL = "UPDATE ship SET rating = ?, version = version + 1 " +
+            "WHERE id = ? AND version = ?";
+    private static final String SELECT_CHECKPOINT_SQL = "SELECT last_id, rows_done, finished FROM rating_recalculation " +
+            "WHERE current_year = ?";
+    private static final String INSERT_CHECKPOINT_SQL = "INSERT INTO rating_recalculation(current_year, last_id, rows_done, finished) " +
+            "VALUES (?, 0, 0, FALSE)";
+    private static final String UPDATE_CHECKPOINT_SQL = "UPDATE rating_recalculation SET last_id = ?, rows_done = ?, finished = ? " +
+            "WHERE current_year = ?";
+
+    /**
+     * Rows rated by one fork-join task; below this splitting costs more than it saves.
+     */
+    private static final int ROWS_PER_TASK = 2048;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rating-recalculation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private ShipQuerySpace querySpace;
+    private FleetIndex fleetIndex;
+    private RatingCalculator ratingCalculator;
+    private int parallelism;
+    private int chunkSize;
+    // the pool of the current run, null between runs
+    private volatile ForkJoinPool pool;
+
+    private volatile State state = State.IDLE;
+    private volatile long lastId;
+    private volatile long rowsScanned;
+    private volatile long rowsUpdated;
+    private volatile long rowsPerSecond;
+    private volatile String error;
+
+    @Autowired
+    public RatingRecalculationJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  EntityManagerFactory entityManagerFactory, ShipQuerySpace querySpace,
+                                  FleetIndex fleetIndex,
+                                  RatingCalculator ratingCalculator,
+                                  @Value("${rating.job.chunk-size}") int chunkSize,
+                                  @Value("${rating.job.parallelism}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.querySpace = querySpace;
+        this.fleetIndex = fleetIndex;
+        this.ratingCalculator = ratingCalculator;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Starts the job in the background.
+     *
+     * @return {@code false} if it is already running
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        state = State.RUNNING;
+        runner.execute(this::runAndRelease);
+        return true;
+    }
+
+    /**
+     * Runs the job in the calling thread.
+     *
+     * @return {@code false} if it is already running
+     */
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        runAndRelease();
+        return true;
+    }
+
+    public RatingRecalculationStatus getStatus() {
+        return new RatingRecalculationStatus(state, ratingCalculator.getCurrentYear(), lastId,
+                rowsScanned, rowsUpdated, rowsPerSecond, error);
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+        ForkJoinPool current = pool;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    private void runAndRelease() {
+        try {
+            state = State.RUNNING;
+            error = null;
+            pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+            recalculate();
+            state = State.FINISHED;
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            state = State.FAILED;
+        } finally {
+            ForkJoinPool finished = pool;
+            pool = null;
+            if (finished != null) {
+                finished.shutdown();
+            }
+            running.set(false);
+        }
+    }
+
+    private void recalculate() {
+        int currentYear = ratingCalculator.getCurrentYear();
+        resumeFromCheckpoint(currentYear);
+        rowsUpdated = 0;
+        rowsPerSecond = 0;
+
+        Chunk chunk = new Chunk(chunkSize);
+        // a batch that does not report row counts leaves the index to a reload
+        boolean[] indexExact = {true};
+        long runScanned = 0;
+        long startedAt = System.nanoTime();
+        boolean finished = false;
+        while (!finished) {
+            int[] updated = new int[1];
+            finished = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                int rows = chunk.read(jdbcTemplate, lastId);
+                if (rows == 0) {
+                    saveCheckpoint(currentYear, lastId, rowsScanned, true);
+                    return true;
+                }
+                pool.invoke(new RateTask(chunk, ratingCalculator, 0, rows));
+                updated[0] = writeChanged(chunk, rows, indexExact);
+                saveCheckpoint(currentYear, chunk.ids[rows - 1], rowsScanned + rows, rows < chunkSize);
+                return rows < chunkSize;
+            }));
+
+            int rows = chunk.rows;
+            if (rows > 0) {
+                evict(chunk);
+                if (indexExact[0] && fleetIndex.isEnabled() && chunk.changedCount > 0) {
+                    updateIndex(chunk);
+                }
+                lastId = chunk.ids[rows - 1];
+                rowsScanned += rows;
+                rowsUpdated += updated[0];
+                runScanned += rows;
+                long elapsedNanos = Math.max(1, System.nanoTime() - startedAt);
+                rowsPerSecond = runScanned * 1_000_000_000L / elapsedNanos;
+            }
+        }
+
+        if (!indexExact[0] && fleetIndex.isEnabled()) {
+            fleetIndex.reload();
+        }
+    }
+
+    /**
+     * Continues an unfinished run for this year; a finished one is started over.
+     */
+    private void resumeFromCheckpoint(int currentYear) {
+        List<long[]> checkpoint = jdbcTemplate.query(SELECT_CHECKPOINT_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getBoolean(3) ? 1 : 0},
+                currentYear);
+        if (checkpoint.isEmpty()) {
+            jdbcTemplate.update(INSERT_CHECKPOINT_SQL, currentYear);
+            lastId = 0;
+            rowsScanned = 0;
+        } else if (checkpoint.get(0)[2] == 1) {
+            saveCheckpoint(currentYear, 0, 0, false);
+            lastId = 0;
+            rowsScanned = 0;
+        } else {
+            lastId = checkpoint.get(0)[0];
+            rowsScanned = checkpoint.get(0)[1];
+        }
+    }
+
+    private void saveCheckpoint(int currentYear, long lastId, long rowsDone, boolean finished) {
+        jdbcTemplate.update(UPDATE_CHECKPOINT_SQL, lastId, rowsDone, finished, currentYear);
+    }
+
+    /**
+     * Writes the ratings that differ from the stored ones and keeps the rows that were
+     * written in {@code chunk.changed}. A row lost to a concurrent update is dropped
+     * from it; if the driver cannot tell, {@code indexExact[0]} is cleared.
+     *
+     * @return the number of ships updated
+     */
+    private int writeChanged(Chunk chunk, int rows, boolean[] indexExact) {
+        int changed = 0;
+        for (int i = 0; i < rows; i++) {
+            if (chunk.rated[i] && Double.doubleToLongBits(chunk.newRatings[i]) != Double.doubleToLongBits(chunk.ratings[i])) {
+                chunk.changed[changed++] = i;
+            }
+        }
+        chunk.changedCount = changed;
+        if (changed == 0) {
+            return 0;
+        }
+
+        int batchSize = changed;
+        int[] counts = querySpace.write(() -> jdbcTemplate.batchUpdate(UPDATE_RATING_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                int row = chunk.changed[i];
+                statement.setDouble(1, chunk.newRatings[row]);
+                statement.setLong(2, chunk.ids[row]);
+                statement.setLong(3, chunk.versions[row]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batchSize;
+            }
+        }));
+
+        int updated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            // a rewritten MySQL batch reports SUCCESS_NO_INFO instead of row counts
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                indexExact[0] = false;
+            }
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                chunk.changed[updated++] = chunk.changed[i];
+            }
+        }
+        chunk.changedCount = updated;
+        return updated;
+    }
+
+    private void evict(Chunk chunk) {
+        Cache cache = entityManagerFactory.getCache();
+        for (int i = 0; i < chunk.changedCount; i++) {
+            cache.evict(Ship.class, chunk.ids[chunk.changed[i]]);
+        }
+    }
+
+    private void updateIndex(Chunk chunk) {
+        int changed = chunk.changedCount;
+        long[] ids = new long[changed];
+        double[] ratings = new double[changed];
+        for (int i = 0; i < changed; i++) {
+            ids[i] = chunk.ids[chunk.changed[i]];
+            ratings[i] = chunk.newRatings[chunk.changed[i]];
+        }
+        fleetIndex.setRatings(ids, ratings, changed);
+    }
+
+    /**
+     * One chunk of the ship table as primitive columns; the arrays are reused for every chunk.
+     */
+    private static final class Chunk {
+
+        final long[] ids;
+        final long[] versions;
+        final double[] speeds;
+        final boolean[] used;
+        final long[] prodDates;
+        final double[] ratings;
+        /**
+         * {@code false} for rows with a missing rating input, their rating is left alone.
+         */
+        final boolean[] rated;
+        final double[] newRatings;
+        final int[] changed;
+        int rows;
+        int changedCount;
+
+        Chunk(int capacity) {
+            ids = new long[capacity];
+            versions = new long[capacity];
+            speeds = new double[capacity];
+            used = new boolean[capacity];
+            prodDates = new long[capacity];
+            ratings = new double[capacity];
+            rated = new boolean[capacity];
+            newRatings = new double[capacity];
+            changed = new int[capacity];
+        }
+
+        int read(JdbcTemplate jdbcTemplate, long afterId) {
+            rows = 0;
+            changedCount = 0;
+            jdbcTemplate.query(SELECT_CHUNK_SQL, rs -> {
+                int row = rows++;
+                ids[row] = rs.getLong(1);
+                speeds[row] = rs.getDouble(2);
+                boolean hasSpeed = !rs.wasNull();
+                used[row] = rs.getBoolean(3);
+                boolean hasUsed = !rs.wasNull();
+                Date prodDate = rs.getDate(4);
+                prodDates[row] = prodDate == null ? 0 : prodDate.getTime();
+                ratings[row] = rs.getDouble(5);
+                versions[row] = rs.getLong(6);
+                rated[row] = hasSpeed && hasUsed && prodDate != null;
+            }, afterId, ids.length);
+            return rows;
+        }
+    }
+
+    private static final class RateTask extends RecursiveAction {
+
+        private final Chunk chunk;
+        private final RatingCalculator calculator;
+        private final int from;
+        private final int to;
+
+        RateTask(Chunk chunk, RatingCalculator calculator, int from, int to) {
+            this.chunk = chunk;
+            this.calculator = calculator;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    if (chunk.rated[i]) {
+                        chunk.newRatings[i] = calculator.rating(chunk.speeds[i], chunk.used[i], chunk.prodDates[i]);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RateTask(chunk, calculator, from, middle), new RateTask(chunk, calculator, middle, to));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.space.service;
+
+import com.space.dto.AddOrUpdateShipDtoRequest;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import com.space.repository.ShipSpecification;
+import com.space.service.index.FleetIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Updates and deletes every ship matching the list filters with one set-based
+ * statement, instead of a find and a save or delete per ship. Hibernate evicts
+ * the cached ships and query results of a bulk statement itself; the fleet index
+ * is reloaded afterwards.
+ * <p>
+ * A filter is required, so a request without parameters, or with blank ones only,
+ * cannot wipe the fleet.
+ */
+@Service
+public class ShipBulkService {
+
+    private ShipService shipService;
+    private ShipRepository shipRepository;
+    private TransactionTemplate transactionTemplate;
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    public ShipBulkService(ShipService shipService, ShipRepository shipRepository,
+                           PlatformTransactionManager transactionManager, FleetIndex fleetIndex) {
+        this.shipService = shipService;
+        this.shipRepository = shipRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fleetIndex = fleetIndex;
+    }
+
+    public ResponseEntity<Long> updateShips(String name, String planet, ShipType shipType,
+                                            Long after, Long before, Boolean isUsed, Double minSpeed,
+                                            Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
+                                            Double minRating, Double maxRating,
+                                            AddOrUpdateShipDtoRequest request) {
+        if (!anyPresent(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Ship changes = new Ship();
+        if (!shipService.applyChanges(changes, request) || ShipService.isEmpty(changes)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Specification<Ship> spec = ShipSpecification.byFilter(name, planet, shipType,
+                after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating);
+        Integer updated = transactionTemplate.execute(status -> shipRepository.updateMatching(spec, changes));
+        afterBulkChange(updated);
+        return new ResponseEntity<>(updated.longValue(), HttpStatus.OK);
+    }
+
+    public ResponseEntity<Long> deleteShips(String name, String planet, ShipType shipType,
+                                            Long after, Long before, Boolean isUsed, Double minSpeed,
+                                            Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
+                                            Double minRating, Double maxRating) {
+        if (!anyPresent(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Specification<Ship> spec = ShipSpecification.byFilter(name, planet, shipType,
+                after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating);
+        Integer deleted = transactionTemplate.execute(status -> shipRepository.deleteMatching(spec));
+        afterBulkChange(deleted);
+        return new ResponseEntity<>(deleted.longValue(), HttpStatus.OK);
+    }
+
+    private void afterBulkChange(int changed) {
+        if (changed > 0 && fleetIndex.isEnabled()) {
+            fleetIndex.reload();
+        }
+    }
+
+    /**
+     * A blank {@code ?name=} is bound as "" and matches every ship, so it is no filter either.
+     */
+    private static boolean anyPresent(Object... values) {
+        for (Object value : values) {
+            if (value instanceof String ? StringUtils.hasText((String) value) : value != null) return true;
+        }
+        return false;
+    }
+}
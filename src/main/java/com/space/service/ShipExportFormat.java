@@ -0,0 +1,16 @@
+package com.space.service;
+
+public enum ShipExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private String contentType;
+
+    ShipExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
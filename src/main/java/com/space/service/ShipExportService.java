@@ -0,0 +1,141 @@
+package com.space.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import com.space.repository.ShipSpecification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes every ship matching a filter to an output stream, one row at a time.
+ * Rows come from a forward-only cursor and go straight to the stream, so memory
+ * stays flat whatever the size of the result; a slow reader blocks the write and
+ * with it the cursor.
+ */
+@Service
+public class ShipExportService {
+
+    private static final String CSV_HEADER = "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating";
+
+    private final ObjectMapper mapper = ShipJson.newMapper();
+
+    private ShipRepository shipRepository;
+    private TransactionTemplate transactionTemplate;
+    private int fetchSize;
+
+    @Autowired
+    public ShipExportService(ShipRepository shipRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${export.fetch-size}") int fetchSize) {
+        this.shipRepository = shipRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    public void exportShips(String name, String planet, ShipType shipType,
+                            Long after, Long before, Boolean isUsed, Double minSpeed,
+                            Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
+                            Double minRating, Double maxRating,
+                            ShipOrder order, ShipExportFormat format, OutputStream out) throws IOException {
+        Specification<Ship> spec = ShipSpecification.byFilter(name, planet, shipType,
+                after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating);
+
+        try {
+            if (format == ShipExportFormat.CSV) {
+                exportCsv(spec, order, out);
+            } else {
+                exportNdjson(spec, order, out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void exportNdjson(Specification<Ship> spec, ShipOrder order, OutputStream out) throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            scan(spec, order, ship -> {
+                mapper.writeValue(generator, ship);
+                generator.writeRaw('\n');
+            });
+        }
+    }
+
+    private void exportCsv(Specification<Ship> spec, ShipOrder order, OutputStream out) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            scan(spec, order, ship -> {
+                writer.write(csvValue(ship.getId()));
+                writer.write(',');
+                writer.write(csvText(ship.getName()));
+                writer.write(',');
+                writer.write(csvText(ship.getPlanet()));
+                writer.write(',');
+                writer.write(csvValue(ship.getShipType()));
+                writer.write(',');
+                writer.write(ship.getProdDate() == null ? "" : String.valueOf(ship.getProdDate().getTime()));
+                writer.write(',');
+                writer.write(csvValue(ship.getUsed()));
+                writer.write(',');
+                writer.write(csvValue(ship.getSpeed()));
+                writer.write(',');
+                writer.write(csvValue(ship.getCrewSize()));
+                writer.write(',');
+                writer.write(csvValue(ship.getRating()));
+                writer.write('\n');
+            });
+        }
+    }
+
+    private void scan(Specification<Ship> spec, ShipOrder order, ShipWriter shipWriter) {
+        transactionTemplate.execute(status -> {
+            shipRepository.scanMatching(spec, ShipService.toSort(order), fetchSize, ship -> {
+                try {
+                    shipWriter.write(ship);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return null;
+        });
+    }
+
+    /**
+     * A NULL column is an empty field.
+     */
+    private static String csvValue(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String csvText(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private interface ShipWriter {
+        void write(Ship ship) throws IOException;
+    }
+}
@@ -0,0 +1,137 @@
+package com.space.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.space.dto.AddOrUpdateShipDtoRequest;
+import com.space.dto.ShipImportReport;
+import com.space.model.Ship;
+import com.space.repository.ShipJdbcRepository;
+import com.space.service.index.FleetIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams ships from a JSON array or NDJSON body into the ship table in JDBC batches.
+ * Records are validated exactly like a single create; invalid ones are reported and
+ * skipped, the rest of the import carries on.
+ */
+@Service
+public class ShipImportService {
+
+    private final ObjectReader reader;
+
+    private ShipService shipService;
+    private ShipJdbcRepository shipJdbcRepository;
+    private TransactionTemplate transactionTemplate;
+    private FleetIndex fleetIndex;
+    private int batchSize;
+
+    @Autowired
+    public ShipImportService(ShipService shipService,
+                             ShipJdbcRepository shipJdbcRepository,
+                             PlatformTransactionManager transactionManager,
+                             FleetIndex fleetIndex,
+                             @Value("${import.batch-size}") int batchSize) {
+        this.shipService = shipService;
+        this.shipJdbcRepository = shipJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fleetIndex = fleetIndex;
+        this.batchSize = batchSize;
+        this.reader = ShipJson.newMapper().readerFor(AddOrUpdateShipDtoRequest.class);
+    }
+
+    /**
+     * Imports every ship in the stream. A JSON array and whitespace separated
+     * objects (NDJSON) are both accepted; the body is never held in memory as a whole.
+     */
+    public ShipImportReport importShips(InputStream body) throws IOException {
+        ShipImportReport report = new ShipImportReport();
+        List<Ship> batch = new ArrayList<>(batchSize);
+        List<Long> batchIndexes = new ArrayList<>(batchSize);
+
+        try (MappingIterator<AddOrUpdateShipDtoRequest> records = reader.readValues(body)) {
+            long index = 0;
+            while (true) {
+                AddOrUpdateShipDtoRequest request;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    request = records.nextValue();
+                } catch (JsonParseException e) {
+                    // the stream itself is broken, nothing after this point can be trusted
+                    report.recordReceived();
+                    report.recordFailed(index, "Malformed JSON: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    report.recordReceived();
+                    report.recordFailed(index++, "Invalid record: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                report.recordReceived();
+                Ship ship = request == null ? null : shipService.buildNewShip(request);
+                if (ship == null) {
+                    report.recordFailed(index++, "Invalid ship");
+                    continue;
+                }
+                batch.add(ship);
+                batchIndexes.add(index++);
+                if (batch.size() == batchSize) {
+                    flush(batch, batchIndexes, report);
+                }
+            }
+            flush(batch, batchIndexes, report);
+        } finally {
+            if (report.getImported() > 0) {
+                afterImport();
+            }
+        }
+        return report;
+    }
+
+    private void flush(List<Ship> batch, List<Long> batchIndexes, ShipImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                shipJdbcRepository.insertAll(batch);
+                return null;
+            });
+            report.recordImported(batch.size());
+        } catch (DataAccessException e) {
+            // find the offending rows so the good ones of the batch still get in
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    shipJdbcRepository.insert(batch.get(i));
+                    report.recordImported(1);
+                } catch (DataAccessException rowException) {
+                    report.recordFailed(batchIndexes.get(i), "Insert failed: " + rowException.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        batch.clear();
+        batchIndexes.clear();
+    }
+
+    /**
+     * The inserts bypassed Hibernate, so the fleet index has to be brought up to date by hand.
+     */
+    private void afterImport() {
+        if (fleetIndex.isEnabled()) {
+            fleetIndex.reload();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.space.service;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Mapper for the streaming endpoints that read or write the body themselves;
+ * binds fields the same way as the REST message converter in WebConfig. Writing a
+ * value does not flush, so a stream of ships reaches the socket in buffer-sized chunks.
+ */
+final class ShipJson {
+
+    private ShipJson() {
+    }
+
+    static ObjectMapper newMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        mapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return mapper;
+    }
+}
@@ -2,91 +2,151 @@ package com.space.service;
 
 import com.space.controller.ShipOrder;
 import com.space.dto.AddOrUpdateShipDtoRequest;
+import com.space.dto.ShipCursor;
+import com.space.metrics.MetricsRegistry;
+import com.space.metrics.MetricsRegistry.RowSource;
+import com.space.metrics.MetricsRegistry.Stage;
+import com.space.model.RatingCalculator;
 import com.space.model.Ship;
 import com.space.model.ShipType;
+import com.space.repository.ShipJdbcRepository;
 import com.space.repository.ShipRepository;
+import com.space.repository.ShipSpecification;
+import com.space.service.index.FleetIndex;
+import com.space.service.index.FleetQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ShipService {
 
+    public static final int DEFAULT_PAGE_SIZE = 3;
+
     private ShipRepository shipRepository;
+    private ShipJdbcRepository shipJdbcRepository;
+    private TransactionTemplate transactionTemplate;
+    private FleetIndex fleetIndex;
+    private RatingCalculator ratingCalculator;
+    private MetricsRegistry metricsRegistry;
+    private int updateMaxRetries;
 
     @Autowired
-    public ShipService(ShipRepository shipRepository) {
+    public ShipService(ShipRepository shipRepository, ShipJdbcRepository shipJdbcRepository,
+                       PlatformTransactionManager transactionManager, FleetIndex fleetIndex,
+                       RatingCalculator ratingCalculator, MetricsRegistry metricsRegistry,
+                       @Value("${update.max-retries}") int updateMaxRetries) {
         this.shipRepository = shipRepository;
+        this.ratingCalculator = ratingCalculator;
+        this.shipJdbcRepository = shipJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fleetIndex = fleetIndex;
+        this.metricsRegistry = metricsRegistry;
+        this.updateMaxRetries = updateMaxRetries;
     }
 
-    public List<Ship> getShips(String name, String planet, ShipType shipType,
-                               Long after, Long before, Boolean isUsed, Double minSpeed,
-                               Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
-                               Double minRating, Double maxRating
-    ) {
-
-        Date afterDate = after == null ? null : new Date(after);
-        Date beforeDate = before == null ? null : new Date(before);
-
-        List<Ship> list = new ArrayList<>();
-
-        shipRepository.findAll().forEach((ship) -> {
-            if (name != null && !ship.getName().contains(name)) return;
-            if (planet != null && !ship.getPlanet().contains(planet)) return;
-            if (shipType != null && ship.getShipType() != shipType) return;
-            if (afterDate != null && ship.getProdDate().before(afterDate)) return;
-            if (beforeDate != null && ship.getProdDate().after(beforeDate)) return;
-            if (isUsed != null && ship.getUsed().booleanValue() != isUsed.booleanValue()) return;
-            if (minSpeed != null && ship.getSpeed().compareTo(minSpeed) < 0) return;
-            if (maxSpeed != null && ship.getSpeed().compareTo(maxSpeed) > 0) return;
-            if (minCrewSize != null && ship.getCrewSize().compareTo(minCrewSize) < 0) return;
-            if (maxCrewSize != null && ship.getCrewSize().compareTo(maxCrewSize) > 0) return;
-            if (minRating != null && ship.getRating().compareTo(minRating) < 0) return;
-            if (maxRating != null && ship.getRating().compareTo(maxRating) > 0) return;
-
-            list.add(ship);
-        });
+    public long getShipsCount(String name, String planet, ShipType shipType,
+                              Long after, Long before, Boolean isUsed, Double minSpeed,
+                              Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
+                              Double minRating, Double maxRating) {
+        if (fleetIndex.isEnabled()) {
+            return fleetIndex.count(new FleetQuery(name, planet, shipType,
+                    after, before, isUsed, minSpeed, maxSpeed,
+                    minCrewSize, maxCrewSize, minRating, maxRating));
+        }
+        long start = System.nanoTime();
+        long count = shipRepository.countMatching(ShipSpecification.byFilter(name, planet, shipType,
+                after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating));
+        metricsRegistry.recordStage(Stage.FETCH, System.nanoTime() - start);
+        return count;
+    }
+
+    public List<Ship> getShipsOnPage(String name, String planet, ShipType shipType,
+                                     Long after, Long before, Boolean isUsed, Double minSpeed,
+                                     Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
+                                     Double minRating, Double maxRating,
+                                     ShipOrder order, Integer pageNumber, Integer pageSize,
+                                     ShipCursor cursor) {
+        if (pageSize != null && pageSize == 0) {
+            // PageRequest needs at least one row per page
+            return Collections.emptyList();
+        }
+        if (fleetIndex.isEnabled() && cursor == null) {
+            Pageable pageable = toPageable(order, pageNumber, pageSize);
+            long[] ids = fleetIndex.findIds(new FleetQuery(name, planet, shipType,
+                            after, before, isUsed, minSpeed, maxSpeed,
+                            minCrewSize, maxCrewSize, minRating, maxRating),
+                    order == null ? ShipOrder.ID : order, pageable.getOffset(), pageable.getPageSize());
+            return findAllInOrder(ids);
+        }
 
-        return list;
+        Specification<Ship> spec = ShipSpecification.byFilter(name, planet, shipType,
+                after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating);
+        if (cursor != null) {
+            // the cursor replaces the offset, so every page is a single index range read
+            spec = spec.and(ShipSpecification.seek(cursor.getOrder().getFieldName(),
+                    cursor.getValue(), cursor.getId()));
+            pageNumber = 0;
+        }
+        long start = System.nanoTime();
+        List<Ship> ships = shipRepository.findPage(spec, toPageable(order, pageNumber, pageSize));
+        metricsRegistry.recordStage(Stage.FETCH, System.nanoTime() - start);
+        metricsRegistry.recordRowsReturned(RowSource.DATABASE, ships.size());
+        return ships;
     }
 
-    public List<Ship> sortShipsByOrder(List<Ship> ships, ShipOrder order) {
-        if (order != null) {
-            ships.sort((ship1, ship2) -> {
-                switch (order) {
-                    case ID: return ship1.getId().compareTo(ship2.getId());
-                    case SPEED: return ship1.getSpeed().compareTo(ship2.getSpeed());
-                    case DATE: return ship1.getProdDate().compareTo(ship2.getProdDate());
-                    case RATING: return ship1.getRating().compareTo(ship2.getRating());
-                    default: return 0;
-                }
-            });
+    private List<Ship> findAllInOrder(long[] ids) {
+        long start = System.nanoTime();
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) idList.add(id);
+        Map<Long, Ship> shipsById = new HashMap<>();
+        shipRepository.findAllById(idList).forEach(ship -> shipsById.put(ship.getId(), ship));
+
+        List<Ship> ships = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Ship ship = shipsById.get(id);
+            if (ship != null) ships.add(ship);
         }
+        metricsRegistry.recordStage(Stage.FETCH, System.nanoTime() - start);
         return ships;
     }
 
-    public List<Ship> getShipsOnPage(List<Ship> ships, Integer pageNumber, Integer pageSize) {
-        final Integer page = pageNumber == null ? 0 : pageNumber;
-        final Integer size = pageSize == null ? 3 : pageSize;
-        final int from = page * size;
-        int to = from + size;
-        if (to > ships.size()) to = ships.size();
-        return ships.subList(from, to);
+    private Pageable toPageable(ShipOrder order, Integer pageNumber, Integer pageSize) {
+        final int page = pageNumber == null ? 0 : pageNumber;
+        final int size = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        return PageRequest.of(page, size, toSort(order));
+    }
+
+    static Sort toSort(ShipOrder order) {
+        if (order == null || order == ShipOrder.ID) {
+            return Sort.by(ShipOrder.ID.getFieldName());
+        }
+        // ties are broken by id, as the stable in-memory sort used to do
+        return Sort.by(order.getFieldName()).and(Sort.by(ShipOrder.ID.getFieldName()));
     }
 
     public Double calculateRating(Double speed, boolean isUsed, Date prodDate) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(prodDate);
-        Integer prodYear = calendar.get(Calendar.YEAR);
-        Double k = isUsed ? 0.5 : 1;
-        Double rating = 80 * speed * k / (3019 - prodYear + 1);
-        return Math.round(rating * 100) / 100D;
+        return ratingCalculator.rating(speed, isUsed, prodDate.getTime());
     }
 
     public Ship saveShip(Ship ship) {
@@ -94,13 +154,28 @@ public class ShipService {
     }
 
     public ResponseEntity<Ship> validateAndSaveShip(AddOrUpdateShipDtoRequest request) {
+        Ship ship = buildNewShip(request);
+        if (ship == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Ship savedShip = saveShip(ship);
+        fleetIndex.put(savedShip);
 
+        return withETag(savedShip);
+    }
+
+    /**
+     * Validates a create request and turns it into a new, not yet saved ship with its rating.
+     *
+     * @return the ship, or {@code null} if the request is invalid
+     */
+    public Ship buildNewShip(AddOrUpdateShipDtoRequest request) {
         try {
             if (!request.validate()) {
-                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                return null;
             }
         } catch (NullPointerException e) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            return null;
         }
 
         if (request.getUsed() == null) {
@@ -108,12 +183,9 @@ public class ShipService {
         }
         Date prodDate = new Date(request.getProdDate());
         Double rating = calculateRating(request.getSpeed(), request.getUsed(), prodDate);
-        Ship ship = new Ship(null, request.getName(), request.getPlanet(),
+        return new Ship(null, request.getName(), request.getPlanet(),
                 request.getShipType(), prodDate,
                 request.getUsed(), request.getSpeed(), request.getCrewSize(), rating);
-        Ship savedShip = saveShip(ship);
-
-        return new ResponseEntity<>(savedShip, HttpStatus.OK);
     }
 
     public ResponseEntity<Ship> getShip(Long id) {
@@ -124,33 +196,104 @@ public class ShipService {
         if (ship == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(ship, HttpStatus.OK);
+        return withETag(ship);
     }
 
-    public ResponseEntity<Ship> updateShip(Long id, AddOrUpdateShipDtoRequest request) {
+    /**
+     * Updates the ship under its version. With {@code expectedVersion} (the If-Match of
+     * the request) a ship changed by someone else is a 409. Without it the request only
+     * asks for the given fields to be set, which gives the same result on top of any
+     * concurrent change, so a version conflict is retried on the fresh row; only a
+     * conflict that outlasts {@code update.max-retries} retries is a 409.
+     */
+    public ResponseEntity<Ship> updateShip(Long id, AddOrUpdateShipDtoRequest request, Long expectedVersion) {
         if (!isIdValid(id)) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        ResponseEntity<Ship> entityShip = getShip(id);
-        Ship ship = entityShip.getBody();
-        if (ship == null) {
-            return entityShip;
+
+        for (int attempt = 0; ; attempt++) {
+            ResponseEntity<Ship> response;
+            try {
+                response = tryUpdateShip(id, request, expectedVersion);
+            } catch (ConcurrencyFailureException e) {
+                if (expectedVersion == null && attempt < updateMaxRetries) {
+                    continue;
+                }
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+
+            if (response.getStatusCode() != HttpStatus.OK) {
+                return response;
+            }
+            fleetIndex.put(response.getBody());
+            // the version was incremented by the flush on commit
+            return withETag(response.getBody());
         }
+    }
 
-        ResponseEntity<Ship> badEntity = new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    private ResponseEntity<Ship> tryUpdateShip(Long id, AddOrUpdateShipDtoRequest request, Long expectedVersion) {
+        // the ship stays managed, so the commit flushes a plain UPDATE instead of save() merging it with another SELECT
+        return transactionTemplate.execute(status -> {
+            Ship ship = shipRepository.findById(id).orElse(null);
+            if (ship == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            if (expectedVersion != null && !expectedVersion.equals(ship.getVersion())) {
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+            if (!applyChanges(ship, request)) {
+                status.setRollbackOnly();
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            ship.setRating(calculateRating(ship.getSpeed(), ship.getUsed(), ship.getProdDate()));
+            return new ResponseEntity<>(ship, HttpStatus.OK);
+        });
+    }
+
+    /**
+     * PATCH semantics: only the fields present in {@code request} are written, with one
+     * UPDATE statement and no read. Nothing is returned, the rating is computed by the
+     * database. The statement itself cannot lose a concurrent change, so the version is
+     * only checked when {@code expectedVersion} is given.
+     */
+    public ResponseEntity<Ship> patchShip(Long id, AddOrUpdateShipDtoRequest request, Long expectedVersion) {
+        if (!isIdValid(id)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Ship changes = new Ship();
+        if (!applyChanges(changes, request) || isEmpty(changes)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (shipJdbcRepository.updateById(id, changes, expectedVersion) == 0) {
+            return notFoundOrConflict(id, expectedVersion);
+        }
 
+        if (fleetIndex.isEnabled()) {
+            // the index needs the rating the database came up with
+            shipRepository.findById(id).ifPresent(fleetIndex::put);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Validates the non-null fields of {@code request} and copies them onto {@code ship};
+     * the rating is left alone.
+     *
+     * @return {@code false} if some field is invalid, {@code ship} is then partly changed
+     */
+    boolean applyChanges(Ship ship, AddOrUpdateShipDtoRequest request) {
         String newName = request.getName();
         if (newName != null) {
             if (request.checkString(newName)) {
                 ship.setName(newName);
-            } else return badEntity;
+            } else return false;
         }
 
         String newPlanet = request.getPlanet();
         if (newPlanet != null) {
             if (request.checkString(newPlanet)) {
                 ship.setPlanet(newPlanet);
-            } else return badEntity;
+            } else return false;
         }
 
         ShipType newType = request.getShipType();
@@ -162,7 +305,7 @@ public class ShipService {
             Date newDate = new Date(request.getProdDate());
             if (isDateValid(newDate)) {
                 ship.setProdDate(newDate);
-            } else return badEntity;
+            } else return false;
         }
 
         if (request.getUsed() != null) {
@@ -173,43 +316,61 @@ public class ShipService {
         if (newSpeed != null) {
             if (request.checkSpeed(newSpeed)) {
                 ship.setSpeed(newSpeed);
-            } else return badEntity;
+            } else return false;
         }
 
         Integer newCrewSize = request.getCrewSize();
         if (newCrewSize != null) {
             if (request.checkCrewSize(newCrewSize)) {
                 ship.setCrewSize(newCrewSize);
-            } else return badEntity;
+            } else return false;
         }
+        return true;
+    }
 
-        double newRating = calculateRating(ship.getSpeed(), ship.getUsed(), ship.getProdDate());
-        ship.setRating(newRating);
-
-        saveShip(ship);
-        return new ResponseEntity<>(ship, HttpStatus.OK);
+    static boolean isEmpty(Ship changes) {
+        return changes.getName() == null && changes.getPlanet() == null && changes.getShipType() == null
+                && changes.getProdDate() == null && changes.getUsed() == null
+                && changes.getSpeed() == null && changes.getCrewSize() == null;
     }
 
-    public ResponseEntity<Ship> deleteShip(Long id) {
+    public ResponseEntity<Ship> deleteShip(Long id, Long expectedVersion) {
         if (!isIdValid(id)) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        ResponseEntity<Ship> entityShip = getShip(id);
-        Ship ship = entityShip.getBody();
-        if (ship == null) {
-            return entityShip;
+        if (shipJdbcRepository.deleteById(id, expectedVersion) == 0) {
+            return notFoundOrConflict(id, expectedVersion);
         }
-        shipRepository.delete(ship);
+
+        fleetIndex.remove(id);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
+     * A conditional statement touched no row: either the ship is gone or its version moved on.
+     */
+    private ResponseEntity<Ship> notFoundOrConflict(Long id, Long expectedVersion) {
+        if (expectedVersion != null && shipRepository.existsById(id)) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    private static ResponseEntity<Ship> withETag(Ship ship) {
+        return ResponseEntity.ok().eTag(toETag(ship.getVersion())).body(ship);
+    }
+
+    public static String toETag(Long version) {
+        return "\"" + version + "\"";
+    }
+
     private boolean isIdValid(Long id) {
         return id != null && id > 0;
     }
 
     private boolean isDateValid(Date prodDate) {
         final Date startProd = getDateForYear(2800);
-        final Date endProd = getDateForYear(3019);
+        final Date endProd = getDateForYear(ratingCalculator.getCurrentYear());
         return prodDate != null && prodDate.after(startProd) && prodDate.before(endProd);
     }
 
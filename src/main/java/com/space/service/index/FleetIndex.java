@@ -0,0 +1,532 @@
+package com.space.service.index;
+
+import com.space.controller.ShipOrder;
+import com.space.metrics.MetricsRegistry;
+import com.space.metrics.MetricsRegistry.RowSource;
+import com.space.metrics.MetricsRegistry.Stage;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-process copy of the ship table kept in primitive column arrays,
+ * for read-heavy deployments where list and count requests should not touch
+ * the database at all. Filters are answered by scanning the columns; no Ship
+ * object or boxed value is created per row. The low-cardinality shipType and
+ * isUsed filters are compressed bitmaps that are intersected before any row
+ * is looked at, so counts filtered only by them are a bitmap cardinality.
+ * The name and planet substring filters first narrow the rows through an
+ * n-gram inverted index, so only rows sharing every trigram of the search
+ * text are checked with {@code String.contains}.
+ * Only the ids of the requested page leave the index, the entities
+ * themselves are still loaded by id.
+ * <p>
+ * Rows are appended in id order and updated in place, so row order is id
+ * order, which is also the tie-breaker of every {@link ShipOrder}. Deleted
+ * rows stay in the arrays, but leave the {@code live} and per-value bitmaps,
+ * until the next {@link #reload()}, which builds new columns aside and swaps
+ * them in.
+ * <p>
+ * Requests with at least {@code fleet.index.parallel-threshold} candidate rows
+ * are scanned and sorted on the index's own fork-join pool instead of the
+ * request thread. A page never sorts more rows than it needs: in id order it
+ * is read from the bitmap of matches by rank, and in the other orders one of
+ * the first pages keeps only the rows up to its end in a bounded heap.
+ * <p>
+ * The index only sees changes made through {@code ShipService}; it is meant
+ * for a single application node owning its database.
+ */
+@Component
+public class FleetIndex implements InitializingBean, DisposableBean {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int LOAD_FETCH_SIZE = 10_000;
+    private static final String LOAD_SQL = "SELECT id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating " +
+            "FROM ship ORDER BY id";
+    /**
+     * Pages covering at most this share of the matching rows are selected with a heap instead of a full sort.
+     */
+    private static final int TOP_ROWS_DIVISOR = 4;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private JdbcTemplate jdbcTemplate;
+    private MetricsRegistry metricsRegistry;
+    private boolean enabled;
+    private ForkJoinPool pool;
+    private int parallelThreshold;
+    private int rowsPerTask;
+
+    private Table table;
+    // ids written while a reload reads the ship table, null when there is no reload
+    private Set<Long> writtenDuringReload;
+
+    @Autowired
+    public FleetIndex(JdbcTemplate jdbcTemplate, MetricsRegistry metricsRegistry,
+                      @Value("${fleet.index.enabled}") boolean enabled,
+                      @Value("${fleet.index.parallelism}") int parallelism,
+                      @Value("${fleet.index.parallel-threshold}") int parallelThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metricsRegistry = metricsRegistry;
+        this.enabled = enabled;
+        this.parallelThreshold = Math.max(parallelThreshold, 1);
+        if (enabled) {
+            this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+            // a request just over the threshold is still split across every thread of the pool
+            this.rowsPerTask = Math.max(this.parallelThreshold / pool.getParallelism(), 1);
+        }
+        this.table = new Table(INITIAL_CAPACITY);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the ship table, dropping deleted rows. The table is read
+     * into new columns while requests keep using the old ones; the write lock is only
+     * taken to swap them. Ships put or removed during the read are copied over from the
+     * old columns, which have every such change, so none is lost to the swap.
+     */
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringReload = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Table loaded = null;
+        try {
+            loaded = load();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded != null) {
+                    for (Long id : writtenDuringReload) {
+                        loaded.copy(table, id);
+                    }
+                    table = loaded;
+                }
+                writtenDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Table load() {
+        Table loaded = new Table(INITIAL_CAPACITY);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_SQL);
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> loaded.put(rs.getLong(1), rs.getString(2), rs.getString(3),
+                ShipType.valueOf(rs.getString(4)), rs.getBoolean(6), rs.getDate(5).toLocalDate().toEpochDay(),
+                rs.getDouble(7), rs.getInt(8), rs.getDouble(9)));
+        return loaded;
+    }
+
+    /**
+     * Adds a new ship or replaces the indexed values of an existing one.
+     */
+    public void put(Ship ship) {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            table.put(ship.getId(), ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getUsed(),
+                    FleetQuery.toEpochDay(ship.getProdDate()), ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+            if (writtenDuringReload != null) {
+                writtenDuringReload.add(ship.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            table.remove(id);
+            if (writtenDuringReload != null) {
+                writtenDuringReload.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the ratings of existing ships, {@code ratings[i]} being the new rating of
+     * {@code ids[i]}; ids that are not indexed are skipped.
+     */
+    public void setRatings(long[] ids, double[] ratings, int count) {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                table.setRating(ids[i], ratings[i]);
+                if (writtenDuringReload != null) {
+                    writtenDuringReload.add(ids[i]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long count(FleetQuery query) {
+        lock.readLock().lock();
+        long start = System.nanoTime();
+        try {
+            Table t = table;
+            if (query.needsScan()) {
+                return select(t, query).getLongCardinality();
+            }
+            // equality filters only: the answer is the size of a bitmap intersection
+            if (query.shipType != FleetQuery.ANY && query.used != FleetQuery.ANY) {
+                return RoaringBitmap.andCardinality(t.byShipType[query.shipType], t.usedRows(query.used));
+            }
+            return t.equalityCandidates(query).getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+            metricsRegistry.recordStage(Stage.FILTER, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return ids of the matching ships at positions {@code [offset, offset + limit)} of the given order
+     */
+    public long[] findIds(FleetQuery query, ShipOrder order, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Table t = table;
+            long start = System.nanoTime();
+            RoaringBitmap matched = select(t, query);
+            int found = matched.getCardinality();
+            long filtered = System.nanoTime();
+            metricsRegistry.recordStage(Stage.FILTER, filtered - start);
+            if (offset >= found) return new long[0];
+
+            int from = (int) offset;
+            int to = (int) Math.min(found, offset + limit);
+            RowSorter.Keys keys = t.sortKeys(order);
+            if (keys == null) {
+                // id order is row order: the page is read straight out of the bitmap
+                long[] page = t.idsOf(matched, from, to);
+                metricsRegistry.recordStage(Stage.PAGE, System.nanoTime() - filtered);
+                metricsRegistry.recordRowsReturned(RowSource.INDEX, page.length);
+                return page;
+            }
+            int[] rows;
+            if (to <= found / TOP_ROWS_DIVISOR) {
+                rows = RowSorter.top(matched, keys, to);
+            } else {
+                rows = matched.toArray();
+                if (found >= parallelThreshold) {
+                    // Arrays.parallelSort forks into the pool of the thread that calls it
+                    pool.submit(() -> RowSorter.parallelSort(rows, found, keys)).join();
+                } else {
+                    RowSorter.sort(rows, found, keys);
+                }
+            }
+            long sorted = System.nanoTime();
+            metricsRegistry.recordStage(Stage.SORT, sorted - filtered);
+
+            long[] result = new long[to - from];
+            for (int i = from; i < to; i++) {
+                result[i - from] = t.ids[rows[i]];
+            }
+            metricsRegistry.recordStage(Stage.PAGE, System.nanoTime() - sorted);
+            metricsRegistry.recordRowsReturned(RowSource.INDEX, result.length);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rows matching the query: the intersection of the shipType and isUsed
+     * bitmaps and the n-gram candidates of the name and planet filters,
+     * narrowed by a scan of the range filters and the exact substring check.
+     */
+    private RoaringBitmap select(Table t, FleetQuery query) {
+        RoaringBitmap candidates = t.equalityCandidates(query);
+        candidates = intersect(candidates, query.name == null ? null : t.nameGrams.candidates(query.name));
+        candidates = intersect(candidates, query.planet == null ? null : t.planetGrams.candidates(query.planet));
+        if (!query.needsScan()) {
+            return candidates;
+        }
+        metricsRegistry.recordRowsScanned(RowSource.INDEX, candidates.getLongCardinality());
+        if (candidates.getLongCardinality() >= parallelThreshold) {
+            // the workers read the columns under the read lock held by this thread
+            return pool.invoke(new ScanTask(t, candidates, query, 0, t.size));
+        }
+        return t.scan(candidates, query, 0, t.size);
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap rows, RoaringBitmap candidates) {
+        return candidates == null ? rows : RoaringBitmap.and(rows, candidates);
+    }
+
+    /**
+     * Scans a range of rows; the halves are disjoint, so merging their matches is a cheap bitmap union.
+     */
+    private final class ScanTask extends RecursiveTask<RoaringBitmap> {
+
+        private final Table table;
+        private final RoaringBitmap candidates;
+        private final FleetQuery query;
+        private final int from;
+        private final int to;
+
+        ScanTask(Table table, RoaringBitmap candidates, FleetQuery query, int from, int to) {
+            this.table = table;
+            this.candidates = candidates;
+            this.query = query;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected RoaringBitmap compute() {
+            if (to - from <= rowsPerTask) {
+                return table.scan(candidates, query, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask upper = new ScanTask(table, candidates, query, middle, to);
+            upper.fork();
+            RoaringBitmap lower = new ScanTask(table, candidates, query, from, middle).compute();
+            return RoaringBitmap.or(lower, upper.join());
+        }
+    }
+
+    /**
+     * The columns, bitmaps and n-gram indexes of one load of the ship table.
+     */
+    private static final class Table {
+
+        private int size;
+        private long[] ids;
+        private String[] names;
+        private String[] planets;
+        private byte[] shipTypes;
+        private long[] prodDays;
+        private double[] speeds;
+        private int[] crewSizes;
+        private double[] ratings;
+        // row sets of the low-cardinality columns; they only ever contain live rows
+        private final RoaringBitmap live = new RoaringBitmap();
+        private final RoaringBitmap[] byShipType = new RoaringBitmap[ShipType.values().length];
+        private final RoaringBitmap used = new RoaringBitmap();
+        private final RoaringBitmap unused = new RoaringBitmap();
+        private final NGramIndex nameGrams = new NGramIndex();
+        private final NGramIndex planetGrams = new NGramIndex();
+        private final Map<Long, Integer> rowById = new HashMap<>();
+
+        Table(int capacity) {
+            ids = new long[capacity];
+            names = new String[capacity];
+            planets = new String[capacity];
+            shipTypes = new byte[capacity];
+            prodDays = new long[capacity];
+            speeds = new double[capacity];
+            crewSizes = new int[capacity];
+            ratings = new double[capacity];
+            for (int i = 0; i < byShipType.length; i++) {
+                byShipType[i] = new RoaringBitmap();
+            }
+        }
+
+        void put(long id, String name, String planet, ShipType shipType, boolean isUsed,
+                 long prodDay, double speed, int crewSize, double rating) {
+            Integer existing = rowById.get(id);
+            int row;
+            if (existing != null) {
+                row = existing;
+                clearFlags(row);
+                clearText(row);
+            } else {
+                row = appendRow(id);
+            }
+            setText(row, name, planet);
+            setFlags(row, shipType, isUsed);
+            prodDays[row] = prodDay;
+            speeds[row] = speed;
+            crewSizes[row] = crewSize;
+            ratings[row] = rating;
+        }
+
+        void remove(long id) {
+            Integer row = rowById.remove(id);
+            if (row != null) {
+                live.remove(row);
+                clearFlags(row);
+                clearText(row);
+            }
+        }
+
+        void setRating(long id, double rating) {
+            Integer row = rowById.get(id);
+            if (row != null) {
+                ratings[row] = rating;
+            }
+        }
+
+        /**
+         * Makes the ship {@code id} what it is in {@code source}, removing it if it is not there.
+         */
+        void copy(Table source, long id) {
+            Integer row = source.rowById.get(id);
+            if (row == null) {
+                remove(id);
+                return;
+            }
+            put(id, source.names[row], source.planets[row], ShipType.values()[source.shipTypes[row]],
+                    source.used.contains(row), source.prodDays[row], source.speeds[row],
+                    source.crewSizes[row], source.ratings[row]);
+        }
+
+        long[] idsOf(RoaringBitmap rows, int from, int to) {
+            long[] result = new long[to - from];
+            PeekableIntIterator iterator = rows.getIntIterator();
+            iterator.advanceIfNeeded(rows.select(from));
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ids[iterator.next()];
+            }
+            return result;
+        }
+
+        RowSorter.Keys sortKeys(ShipOrder order) {
+            switch (order) {
+                case SPEED: return RowSorter.Keys.of(speeds);
+                case DATE: return RowSorter.Keys.of(prodDays);
+                case RATING: return RowSorter.Keys.of(ratings);
+                default: return null;
+            }
+        }
+
+        /**
+         * Candidate rows in {@code [from, to)} that pass the range filters and the substring check.
+         */
+        RoaringBitmap scan(RoaringBitmap candidates, FleetQuery query, int from, int to) {
+            RoaringBitmapWriter<RoaringBitmap> matched = RoaringBitmapWriter.writer().get();
+            PeekableIntIterator iterator = candidates.getIntIterator();
+            iterator.advanceIfNeeded(from);
+            while (iterator.hasNext() && iterator.peekNext() < to) {
+                int row = iterator.next();
+                if (matchesScan(row, query)) matched.add(row);
+            }
+            return matched.get();
+        }
+
+        /**
+         * The returned bitmap may be one of the table's own and must not be modified.
+         */
+        RoaringBitmap equalityCandidates(FleetQuery query) {
+            if (query.shipType != FleetQuery.ANY && query.used != FleetQuery.ANY) {
+                return RoaringBitmap.and(byShipType[query.shipType], usedRows(query.used));
+            }
+            if (query.shipType != FleetQuery.ANY) return byShipType[query.shipType];
+            if (query.used != FleetQuery.ANY) return usedRows(query.used);
+            return live;
+        }
+
+        RoaringBitmap usedRows(int usedFlag) {
+            return usedFlag == 1 ? used : unused;
+        }
+
+        private boolean matchesScan(int row, FleetQuery q) {
+            if (prodDays[row] < q.afterDay || prodDays[row] > q.beforeDay) return false;
+            if (speeds[row] < q.minSpeed || speeds[row] > q.maxSpeed) return false;
+            if (crewSizes[row] < q.minCrewSize || crewSizes[row] > q.maxCrewSize) return false;
+            if (ratings[row] < q.minRating || ratings[row] > q.maxRating) return false;
+            if (q.name != null && !names[row].contains(q.name)) return false;
+            if (q.planet != null && !planets[row].contains(q.planet)) return false;
+            return true;
+        }
+
+        private void setText(int row, String name, String planet) {
+            names[row] = name;
+            planets[row] = planet;
+            nameGrams.add(row, name);
+            planetGrams.add(row, planet);
+        }
+
+        private void clearText(int row) {
+            nameGrams.remove(row, names[row]);
+            planetGrams.remove(row, planets[row]);
+            names[row] = null;
+            planets[row] = null;
+        }
+
+        private void setFlags(int row, ShipType shipType, boolean isUsed) {
+            shipTypes[row] = (byte) shipType.ordinal();
+            byShipType[shipType.ordinal()].add(row);
+            (isUsed ? used : unused).add(row);
+        }
+
+        private void clearFlags(int row) {
+            byShipType[shipTypes[row]].remove(row);
+            used.remove(row);
+            unused.remove(row);
+        }
+
+        private int appendRow(long id) {
+            if (size == ids.length) {
+                grow(size * 2);
+            }
+            int row = size++;
+            ids[row] = id;
+            live.add(row);
+            rowById.put(id, row);
+            return row;
+        }
+
+        private void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            planets = Arrays.copyOf(planets, capacity);
+            shipTypes = Arrays.copyOf(shipTypes, capacity);
+            prodDays = Arrays.copyOf(prodDays, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            crewSizes = Arrays.copyOf(crewSizes, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+        }
+    }
+}
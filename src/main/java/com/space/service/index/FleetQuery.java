@@ -0,0 +1,81 @@
+package com.space.service.index;
+
+import com.space.model.ShipType;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * The list filters of {@code GET /rest/ships} in the primitive form the
+ * {@link FleetIndex} columns are compared with. Missing bounds become open
+ * bounds, so matching a row never has to test for {@code null}.
+ */
+public final class FleetQuery {
+
+    static final int ANY = -1;
+
+    final String name;
+    final String planet;
+    final int shipType;
+    final long afterDay;
+    final long beforeDay;
+    final int used;
+    final double minSpeed;
+    final double maxSpeed;
+    final int minCrewSize;
+    final int maxCrewSize;
+    final double minRating;
+    final double maxRating;
+    private final boolean needsScan;
+
+    public FleetQuery(String name, String planet, ShipType shipType,
+                      Long after, Long before, Boolean isUsed, Double minSpeed,
+                      Double maxSpeed, Integer minCrewSize, Integer maxCrewSize,
+                      Double minRating, Double maxRating) {
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType == null ? ANY : shipType.ordinal();
+        // a ship is produced at midnight of its prodDate, as in ShipSpecification
+        this.afterDay = after == null ? Long.MIN_VALUE : firstDayFrom(after);
+        this.beforeDay = before == null ? Long.MAX_VALUE : toEpochDay(before);
+        this.used = isUsed == null ? ANY : (isUsed ? 1 : 0);
+        this.minSpeed = minSpeed == null ? Double.NEGATIVE_INFINITY : minSpeed;
+        this.maxSpeed = maxSpeed == null ? Double.POSITIVE_INFINITY : maxSpeed;
+        this.minCrewSize = minCrewSize == null ? Integer.MIN_VALUE : minCrewSize;
+        this.maxCrewSize = maxCrewSize == null ? Integer.MAX_VALUE : maxCrewSize;
+        this.minRating = minRating == null ? Double.NEGATIVE_INFINITY : minRating;
+        this.maxRating = maxRating == null ? Double.POSITIVE_INFINITY : maxRating;
+        this.needsScan = name != null || planet != null || after != null || before != null
+                || minSpeed != null || maxSpeed != null || minCrewSize != null || maxCrewSize != null
+                || minRating != null || maxRating != null;
+    }
+
+    /**
+     * Whether any filter besides shipType and isUsed is set, so rows have to be looked at.
+     */
+    boolean needsScan() {
+        return needsScan;
+    }
+
+    static long toEpochDay(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * The first day whose midnight is not before {@code epochMillis}.
+     */
+    static long firstDayFrom(long epochMillis) {
+        ZonedDateTime time = Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault());
+        long day = time.toLocalDate().toEpochDay();
+        return time.toLocalTime().equals(LocalTime.MIDNIGHT) ? day : day + 1;
+    }
+
+    static long toEpochDay(java.util.Date date) {
+        if (date instanceof java.sql.Date) {
+            return ((java.sql.Date) date).toLocalDate().toEpochDay();
+        }
+        return toEpochDay(date.getTime());
+    }
+}
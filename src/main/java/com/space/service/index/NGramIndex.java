@@ -0,0 +1,77 @@
+package com.space.service.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from every 1-, 2- and 3-character substring of a text
+ * column to the bitmap of rows containing it. A substring query of up to
+ * three characters is answered exactly by one posting list; a longer one
+ * by the intersection of the posting lists of its trigrams, which is a
+ * superset of the real matches that the caller verifies with
+ * {@link String#contains}.
+ */
+final class NGramIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    private final Map<Long, RoaringBitmap> postings = new HashMap<>();
+
+    void add(int row, String text) {
+        if (text == null) return;
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int start = 0; start + length <= text.length(); start++) {
+                postings.computeIfAbsent(key(text, start, length), k -> new RoaringBitmap()).add(row);
+            }
+        }
+    }
+
+    void remove(int row, String text) {
+        if (text == null) return;
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int start = 0; start + length <= text.length(); start++) {
+                Long key = key(text, start, length);
+                RoaringBitmap rows = postings.get(key);
+                if (rows == null) continue;
+                rows.remove(row);
+                if (rows.isEmpty()) postings.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return rows that may contain {@code query}, or {@code null} for an empty query that matches every row
+     */
+    RoaringBitmap candidates(String query) {
+        if (query.isEmpty()) return null;
+        if (query.length() <= MAX_GRAM) {
+            RoaringBitmap rows = postings.get(key(query, 0, query.length()));
+            return rows == null ? new RoaringBitmap() : rows;
+        }
+        List<RoaringBitmap> lists = new ArrayList<>();
+        for (int start = 0; start + MAX_GRAM <= query.length(); start++) {
+            RoaringBitmap rows = postings.get(key(query, start, MAX_GRAM));
+            if (rows == null) return new RoaringBitmap();
+            lists.add(rows);
+        }
+        // intersect the rarest trigrams first so the intermediate result stays small
+        lists.sort((a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+        RoaringBitmap result = lists.get(0).clone();
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.and(lists.get(i));
+        }
+        return result;
+    }
+
+    private static long key(String text, int start, int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = key << 16 | text.charAt(i);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,190 @@
+package com.space.service.index;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+
+/**
+ * Sorts row numbers of the {@link FleetIndex} by a column and then by row
+ * (that is, by id) using only primitive arrays.
+ * <p>
+ * Each row is packed into a single {@code long}: an order-preserving 32-bit
+ * image of its key in the high half and the row number in the low half, so
+ * a plain {@link Arrays#sort(long[])} orders by key and then by row. The
+ * 32-bit image of a {@code double} or {@code long} key may merge distinct
+ * keys; those short runs of equal images are then re-sorted by the exact key.
+ * <p>
+ * {@link #top} orders only the first rows with a bounded max-heap of
+ * packed rows, for a request that needs just the first pages.
+ */
+final class RowSorter {
+
+    private RowSorter() {
+    }
+
+    /**
+     * Sorts the first {@code count} rows; {@code null} keys mean id order, which rows already are in.
+     */
+    static void sort(int[] rows, int count, Keys keys) {
+        if (keys == null || count < 2) return;
+        long[] packed = pack(rows, count, keys);
+        Arrays.sort(packed, 0, count);
+        unpack(packed, rows, count, keys);
+    }
+
+    /**
+     * Like {@link #sort}, but sorts the packed rows with {@link Arrays#parallelSort(long[], int, int)},
+     * which runs on the fork-join pool of the calling thread.
+     */
+    static void parallelSort(int[] rows, int count, Keys keys) {
+        if (keys == null || count < 2) return;
+        long[] packed = pack(rows, count, keys);
+        Arrays.parallelSort(packed, 0, count);
+        unpack(packed, rows, count, keys);
+    }
+
+    /**
+     * The first {@code top} rows of the bitmap in sort order, found without sorting or
+     * copying the others; the result may hold more rows after those {@code top}.
+     */
+    static int[] top(RoaringBitmap rows, Keys keys, int top) {
+        if (top >= rows.getCardinality()) {
+            int[] all = rows.toArray();
+            sort(all, all.length, keys);
+            return all;
+        }
+        long[] heap = new long[top];
+        IntIterator iterator = rows.getIntIterator();
+        for (int i = 0; i < top; i++) {
+            heap[i] = pack(iterator.next(), keys);
+        }
+        for (int i = (top >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, top);
+        }
+        while (iterator.hasNext()) {
+            long packed = pack(iterator.next(), keys);
+            if (packed < heap[0]) {
+                heap[0] = packed;
+                siftDown(heap, 0, top);
+            }
+        }
+        // the heap holds every row with a smaller image than its largest one, but rows left out
+        // with the same image may still come first by the exact key, so that image is taken whole
+        int boundary = (int) (heap[0] >>> 32);
+        int selected = 0;
+        iterator = rows.getIntIterator();
+        while (iterator.hasNext()) {
+            if (keys.coarse(iterator.next()) <= boundary) selected++;
+        }
+        long[] packed = new long[selected];
+        int next = 0;
+        iterator = rows.getIntIterator();
+        while (iterator.hasNext()) {
+            int row = iterator.next();
+            if (keys.coarse(row) <= boundary) packed[next++] = pack(row, keys);
+        }
+        Arrays.sort(packed);
+        int[] result = new int[selected];
+        unpack(packed, result, selected, keys);
+        return result;
+    }
+
+    static long[] pack(int[] rows, int count, Keys keys) {
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            packed[i] = pack(rows[i], keys);
+        }
+        return packed;
+    }
+
+    private static long pack(int row, Keys keys) {
+        return ((long) keys.coarse(row) << 32) | row;
+    }
+
+    private static void siftDown(long[] heap, int index, int size) {
+        long value = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+            if (value >= heap[child]) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    static void unpack(long[] packed, int[] rows, int count, Keys keys) {
+        for (int i = 0; i < count; i++) {
+            rows[i] = (int) packed[i];
+        }
+        int start = 0;
+        while (start < count) {
+            int high = (int) (packed[start] >>> 32);
+            int end = start + 1;
+            while (end < count && (int) (packed[end] >>> 32) == high) end++;
+            if (end - start > 1) insertionSort(rows, start, end, keys);
+            start = end;
+        }
+    }
+
+    /**
+     * Stable, so rows with equal keys keep their id order.
+     */
+    private static void insertionSort(int[] rows, int from, int to, Keys keys) {
+        for (int i = from + 1; i < to; i++) {
+            int row = rows[i];
+            int j = i - 1;
+            while (j >= from && keys.compare(rows[j], row) > 0) {
+                rows[j + 1] = rows[j];
+                j--;
+            }
+            rows[j + 1] = row;
+        }
+    }
+
+    /**
+     * A sort column of the index.
+     */
+    abstract static class Keys {
+
+        static Keys of(double[] column) {
+            return new Keys() {
+                @Override
+                int coarse(int row) {
+                    // IEEE 754 bits ordered as signed ints, negative values included
+                    int bits = Float.floatToIntBits((float) column[row]);
+                    return bits ^ ((bits >> 31) & 0x7fffffff);
+                }
+
+                @Override
+                int compare(int rowA, int rowB) {
+                    return Double.compare(column[rowA], column[rowB]);
+                }
+            };
+        }
+
+        static Keys of(long[] column) {
+            return new Keys() {
+                @Override
+                int coarse(int row) {
+                    long value = column[row];
+                    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+                }
+
+                @Override
+                int compare(int rowA, int rowB) {
+                    return Long.compare(column[rowA], column[rowB]);
+                }
+            };
+        }
+
+        /**
+         * An int that never orders two rows against their exact keys, but may tie them.
+         */
+        abstract int coarse(int row);
+
+        abstract int compare(int rowA, int rowB);
+    }
+}
@@ -1,6 +1,16 @@
+// keyset cursors of the pages reached by scrolling forward, keyed by page number;
+// they are only valid for the filters, order and page size they were built with
+let pageCursors = {};
+let pageCursorsSearch = null;
+
 function loadContent(root, suffix, currentPage) {
 
-    let objects = JSON.parse(Get(root + "/rest/ships" + suffix).responseText);
+    let shipsRequest = Get(root + "/rest/ships" + suffix);
+    let objects = JSON.parse(shipsRequest.responseText);
+    let nextCursor = shipsRequest.getResponseHeader("X-Next-Cursor");
+    if (nextCursor !== null) {
+        pageCursors[currentPage + 1] = nextCursor;
+    }
     let shipsCount = Get(root + "/rest/ships/count" + suffix).responseText;
     document.getElementById("count").innerText = "Ships found: " + shipsCount;
     let table = document.getElementById("mainTable");
@@ -187,14 +197,24 @@ function processSearch(root, currentPage) {
         sufix += "&maxRating=" + ratingMax;
     }
 
-    sufix += "&pageNumber=" + (+currentPage - 1);
+    if (order === "Prod year") {
+        order = "date";
+    }
+    let search = sufix + "&pageSize=" + +limit + "&order=" + order.toUpperCase();
+    currentPage = +currentPage;
+    if (currentPage === 1 || search !== pageCursorsSearch) {
+        pageCursors = {};
+        pageCursorsSearch = search;
+    }
+    if (pageCursors[currentPage] !== undefined) {
+        sufix += "&cursor=" + encodeURIComponent(pageCursors[currentPage]);
+    } else {
+        sufix += "&pageNumber=" + (currentPage - 1);
+    }
     sufix += "&pageSize=" + +limit;
 
     console.log(limit);
 
-    if (order === "Prod year") {
-        order = "date";
-    }
     sufix += "&order=" + order.toUpperCase();
     loadContent(root, sufix, currentPage);
 }
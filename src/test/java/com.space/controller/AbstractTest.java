@@ -1,11 +1,18 @@
 package com.space.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.space.config.AppConfig;
 import com.space.config.MyWebAppInit;
 import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.metrics.RequestStatistics;
+import com.space.metrics.ServerTimingFilter;
+import com.space.service.index.FleetIndex;
+import org.hibernate.SessionFactory;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.jdbc.Sql;
@@ -13,9 +20,17 @@ import org.springframework.test.context.jdbc.SqlConfig;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import javax.persistence.EntityManagerFactory;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("dev")
 @ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
@@ -23,6 +38,8 @@ import org.springframework.web.context.WebApplicationContext;
 @Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
 public abstract class AbstractTest {
 
+    private static final ObjectMapper SHIP_MAPPER = new ObjectMapper();
+
     WebApplicationContext context;
     MockMvc mockMvc;
 
@@ -33,6 +50,54 @@ public abstract class AbstractTest {
 
     @Before
     public void setup() {
-        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        // test.sql rewrites the table behind Hibernate's back, so cached ships and query results are stale
+        EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+        emf.getCache().evictAll();
+        emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        FleetIndex fleetIndex = context.getBean(FleetIndex.class);
+        if (fleetIndex.isEnabled()) {
+            fleetIndex.reload();
+        }
+
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean(ServerTimingFilter.class))
+                .build();
+    }
+
+    /**
+     * Performs the request and fails the test when it ran more SQL statements than
+     * {@code maxStatements}, so an extra lookup or an N+1 select shows up here rather
+     * than under production load.
+     */
+    ResultActions performWithinQueryBudget(int maxStatements, RequestBuilder request) throws Exception {
+        RequestStatistics statistics = RequestStatistics.start();
+        ResultActions result;
+        try {
+            result = mockMvc.perform(request);
+        } finally {
+            RequestStatistics.stop();
+        }
+        assertTrue("Запрос выполнил " + statistics.getStatements() + " SQL-запросов при бюджете "
+                + maxStatements + " (" + statistics + ").", statistics.getStatements() <= maxStatements);
+        return result;
+    }
+
+    /**
+     * GET /rest/ships/count with the given query string, which starts with "?" or is empty.
+     */
+    long getCount(String query) throws Exception {
+        String count = mockMvc.perform(get("/rest/ships/count" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(count);
+    }
+
+    ShipInfoTest getShip(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return SHIP_MAPPER.readValue(content, ShipInfoTest.class);
     }
 }
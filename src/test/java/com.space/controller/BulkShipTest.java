@@ -0,0 +1,141 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkShipTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void bulkDeleteByFilterTest() throws Exception {
+        long total = getCount("");
+        long jupiter = getCount("?planet=Jupiter");
+
+        String deleted = mockMvc.perform(delete("/rest/ships?planet=Jupiter")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Не правильное количество удалённых кораблей.", jupiter, Long.parseLong(deleted));
+        assertEquals("Корабли, подходящие под фильтр, не удалены.", 0L, getCount("?planet=Jupiter"));
+        assertEquals("Удалены корабли, не подходящие под фильтр.", total - jupiter, getCount(""));
+    }
+
+    //test2
+    @Test
+    public void bulkDeleteWithoutFilterTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void bulkUpdateRecalculatesRatingTest() throws Exception {
+        long military = getCount("?shipType=MILITARY");
+
+        assertEquals("Не правильное количество обновлённых кораблей.", military,
+                bulkUpdate("?shipType=MILITARY", "{\"speed\": 0.37, \"isUsed\": true}"));
+
+        JsonNode ships = getShips("?shipType=MILITARY&pageSize=100");
+        assertEquals("Не все корабли обновлены.", military, (long) ships.size());
+        for (JsonNode ship : ships) {
+            assertEquals("Поле speed не обновлено.", 0.37, ship.get("speed").asDouble());
+            assertTrue("Поле isUsed не обновлено.", ship.get("isUsed").asBoolean());
+            assertRatingIsCalculated(ship);
+        }
+    }
+
+    //test4
+    @Test
+    public void bulkUpdateProdDateTest() throws Exception {
+        long unused = getCount("?isUsed=false");
+
+        assertEquals("Не правильное количество обновлённых кораблей.", unused,
+                bulkUpdate("?isUsed=false", "{\"prodDate\": 32998274577071, \"name\": \"Bulk\"}"));
+
+        JsonNode ships = getShips("?name=Bulk&pageSize=100");
+        assertEquals("Не все корабли обновлены.", unused, (long) ships.size());
+        for (JsonNode ship : ships) {
+            assertRatingIsCalculated(ship);
+        }
+    }
+
+    //test5
+    @Test
+    public void bulkUpdateWithInvalidValueTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/bulk?shipType=MILITARY")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 1.5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void bulkDeleteWithBlankFilterTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships?name=")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+
+        assertEquals("Пустой фильтр удалил корабли.", 40L, getCount(""));
+    }
+
+    //test7
+    @Test
+    public void bulkUpdateWithBlankFilterTest() throws Exception {
+        long slow = getCount("?minSpeed=0.37&maxSpeed=0.37");
+
+        mockMvc.perform(post("/rest/ships/bulk?planet=")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 0.37}"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals("Пустой фильтр обновил корабли.", slow, getCount("?minSpeed=0.37&maxSpeed=0.37"));
+    }
+
+    /**
+     * An empty single-ship update recalculates the rating in Java, which must
+     * agree with what the bulk statement computed in the database.
+     */
+    private void assertRatingIsCalculated(JsonNode ship) throws Exception {
+        String updated = mockMvc.perform(post("/rest/ships/" + ship.get("id").asLong())
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Рейтинг пересчитан не правильно.",
+                mapper.readTree(updated).get("rating").asDouble(), ship.get("rating").asDouble());
+    }
+
+    private long bulkUpdate(String query, String body) throws Exception {
+        String updated = mockMvc.perform(post("/rest/ships/bulk" + query)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(updated);
+    }
+
+    private JsonNode getShips(String query) throws Exception {
+        String ships = mockMvc.perform(get("/rest/ships" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(ships);
+    }
+}
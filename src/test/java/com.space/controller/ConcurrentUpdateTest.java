@@ -0,0 +1,98 @@
+package com.space.controller;
+
+import com.space.dto.AddOrUpdateShipDtoRequest;
+import com.space.model.Ship;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+/**
+ * Several operators edit different fields of the same ship at once against the
+ * embedded H2 database. Every update is a read-modify-write, so without the version
+ * check the rating would be computed from a stale speed and fields would be lost.
+ */
+public class ConcurrentUpdateTest extends AbstractTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentUpdateTest.class);
+
+    private static final long SHIP_ID = 5;
+    private static final int UPDATES_PER_THREAD = 100;
+
+    //test1
+    @Test
+    public void concurrentUpdatesOfDifferentFieldsAreNotLost() throws Exception {
+        ShipService shipService = context.getBean(ShipService.class);
+        List<IntFunction<AddOrUpdateShipDtoRequest>> writers = Arrays.asList(
+                i -> request(r -> r.setName("Name " + i)),
+                i -> request(r -> r.setPlanet("Planet " + i)),
+                i -> request(r -> r.setCrewSize(100 + i)),
+                i -> request(r -> r.setSpeed((i % 98 + 1) / 100D)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers.size());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<Integer>> lastApplied = new ArrayList<>();
+        for (IntFunction<AddOrUpdateShipDtoRequest> writer : writers) {
+            lastApplied.add(pool.submit(() -> {
+                start.await();
+                int last = -1;
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    HttpStatus status = shipService.updateShip(SHIP_ID, writer.apply(i), null).getStatusCode();
+                    if (status == HttpStatus.OK) {
+                        last = i;
+                    } else if (status == HttpStatus.CONFLICT) {
+                        conflicts.incrementAndGet();
+                    } else {
+                        throw new IllegalStateException("Unexpected status " + status);
+                    }
+                }
+                return last;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        List<Integer> last = new ArrayList<>();
+        for (Future<Integer> future : lastApplied) {
+            last.add(future.get());
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        pool.shutdown();
+
+        int total = writers.size() * UPDATES_PER_THREAD;
+        LOGGER.info("{} threads, {} updates of one ship in {} ms: {} updates/s, {} gave up with 409",
+                writers.size(), total, elapsedNanos / 1_000_000,
+                Math.round(total * 1e9 / elapsedNanos), conflicts.get());
+
+        Ship ship = shipService.getShip(SHIP_ID).getBody();
+        assertTrue("Ни одно обновление не прошло.", last.stream().allMatch(i -> i >= 0));
+        assertEquals("Потеряно обновление поля name.", "Name " + last.get(0), ship.getName());
+        assertEquals("Потеряно обновление поля planet.", "Planet " + last.get(1), ship.getPlanet());
+        assertEquals("Потеряно обновление поля crewSize.", 100 + last.get(2), ship.getCrewSize());
+        assertEquals("Потеряно обновление поля speed.", (last.get(3) % 98 + 1) / 100D, ship.getSpeed());
+        assertEquals("Рейтинг посчитан по устаревшим данным.",
+                shipService.calculateRating(ship.getSpeed(), ship.getUsed(), ship.getProdDate()), ship.getRating());
+    }
+
+    private static AddOrUpdateShipDtoRequest request(Consumer<AddOrUpdateShipDtoRequest> setter) {
+        AddOrUpdateShipDtoRequest request = new AddOrUpdateShipDtoRequest();
+        setter.accept(request);
+        return request;
+    }
+}
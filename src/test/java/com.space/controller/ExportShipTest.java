@@ -0,0 +1,77 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportShipTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportAllAsNdjsonTest() throws Exception {
+        String[] lines = export("").split("\n");
+
+        assertEquals("Экспорт вернул не все корабли.", getCount(""), (long) lines.length);
+        long previousId = 0;
+        for (String line : lines) {
+            long id = mapper.readTree(line).get("id").asLong();
+            assertTrue("Корабли экспортированы не по порядку.", id > previousId);
+            previousId = id;
+        }
+    }
+
+    //test2
+    @Test
+    public void exportFilteredAsNdjsonTest() throws Exception {
+        String query = "?planet=Jupiter&order=SPEED";
+        String[] lines = export(query).split("\n");
+
+        assertEquals("Экспорт не учитывает фильтр.", getCount(query), (long) lines.length);
+        double previousSpeed = 0;
+        for (String line : lines) {
+            JsonNode ship = mapper.readTree(line);
+            assertTrue("Экспорт не учитывает фильтр.", ship.get("planet").asText().contains("Jupiter"));
+            assertTrue("Корабли экспортированы не по порядку.", ship.get("speed").asDouble() >= previousSpeed);
+            previousSpeed = ship.get("speed").asDouble();
+        }
+    }
+
+    //test3
+    @Test
+    public void exportAsCsvTest() throws Exception {
+        String[] lines = export("?format=CSV&shipType=MILITARY").split("\n");
+
+        assertEquals("Не правильный заголовок CSV.",
+                "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating", lines[0]);
+        assertEquals("Экспорт в CSV вернул не все корабли.", getCount("?shipType=MILITARY"), (long) lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue("Экспорт в CSV не учитывает фильтр.", lines[i].contains(",MILITARY,"));
+        }
+    }
+
+    //test4
+    @Test
+    public void exportAsCsvWithNullColumnsTest() throws Exception {
+        context.getBean(JdbcTemplate.class).update("UPDATE ship SET planet = NULL, shipType = NULL, prodDate = NULL, "
+                + "isUsed = NULL, speed = NULL, crewSize = NULL, rating = NULL WHERE id = 1");
+
+        String[] lines = export("?format=CSV").split("\n");
+
+        assertEquals("Экспорт в CSV прервался на корабле с пустыми полями.", getCount(""), (long) lines.length - 1);
+        assertEquals("Пустые поля экспортированы в CSV не правильно.", "1,Orion III,,,,,,,", lines[1]);
+    }
+
+    private String export(String query) throws Exception {
+        return mockMvc.perform(get("/rest/ships/export" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
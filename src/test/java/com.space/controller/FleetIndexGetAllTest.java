@@ -0,0 +1,10 @@
+package com.space.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the GetAllTest cases against the in-process fleet index instead of the database.
+ */
+@TestPropertySource(properties = "fleet.index.enabled=true")
+public class FleetIndexGetAllTest extends GetAllTest {
+}
@@ -0,0 +1,10 @@
+package com.space.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the GetAllTest cases through the parallel scan and sort of the fleet index.
+ */
+@TestPropertySource(properties = {"fleet.index.enabled=true", "fleet.index.parallelism=4", "fleet.index.parallel-threshold=1"})
+public class FleetIndexParallelGetAllTest extends GetAllTest {
+}
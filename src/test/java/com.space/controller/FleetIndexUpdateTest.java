@@ -0,0 +1,74 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import com.space.service.RatingRecalculationJob;
+import com.space.service.index.FleetIndex;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "fleet.index.enabled=true")
+public class FleetIndexUpdateTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void createIsVisibleInIndex() throws Exception {
+        mockMvc.perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("Созданный корабль не попал в индекс флота.", 1L, getCount("?name=123456789"));
+    }
+
+    //test2
+    @Test
+    public void updateIsVisibleInIndex() throws Exception {
+        mockMvc.perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Index Probe\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Обновлённый корабль не найден в индексе флота по новому имени.", 1L, getCount("?name=Index Probe"));
+        assertEquals("Обновлённый корабль найден в индексе флота по старому имени.", 0L, getCount("?name=Excalibur"));
+    }
+
+    //test3
+    @Test
+    public void deleteIsVisibleInIndex() throws Exception {
+        mockMvc.perform(delete("/rest/ships/5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        assertEquals("Удалённый корабль остался в индексе флота.", 0L, getCount("?name=Excalibur"));
+    }
+
+    //test4
+    @Test
+    public void substringSearchLongerThanTrigram() throws Exception {
+        assertEquals("Поиск по подстроке длиннее триграммы возвращает не правильный результат.", 1L, getCount("?name=Orbi"));
+        assertEquals("Поиск по подстроке длиннее триграммы возвращает не правильный результат.", 0L, getCount("?name=Orion Jet"));
+        assertEquals("Поиск по подстроке длиннее триграммы возвращает не правильный результат.", 6L, getCount("?planet=Jupiter"));
+    }
+
+    //test5
+    @Test
+    public void recalculatedRatingsAreVisibleInIndex() throws Exception {
+        context.getBean(JdbcTemplate.class).update("UPDATE ship SET rating = 0");
+        context.getBean(FleetIndex.class).reload();
+        assertEquals("Индекс флота не перечитал рейтинги.", 40L, getCount("?maxRating=0"));
+
+        context.getBean(RatingRecalculationJob.class).run();
+
+        assertEquals("Пересчитанные рейтинги не попали в индекс флота.", 0L, getCount("?maxRating=0"));
+        assertEquals("Пересчитанные рейтинги не попали в индекс флота.", 40L, getCount("?minRating=0.01"));
+    }
+}
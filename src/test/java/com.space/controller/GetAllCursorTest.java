@@ -0,0 +1,104 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetAllCursorTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void scrollWithCursorReturnsAllShipsInOrder() throws Exception {
+        for (ShipOrder order : ShipOrder.values()) {
+            List<ShipInfoTest> actual = scroll("/rest/ships?planet=a&order=" + order, 4);
+            List<ShipInfoTest> expected = sortByOrder(order,
+                    testsHelper.getShipInfosByPlanet("a", testsHelper.getAllShips()));
+
+            assertEquals("Прокрутка по курсору GET /rest/ships с order=" + order + " возвращает не правильный результат.",
+                    expected, actual);
+        }
+    }
+
+    //test2
+    @Test
+    public void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/rest/ships?cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void cursorOfAnotherOrderIsBadRequest() throws Exception {
+        String cursor = mockMvc.perform(get("/rest/ships?order=SPEED")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/rest/ships?order=RATING&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void shortPageHasNoCursor() throws Exception {
+        String cursor = mockMvc.perform(get("/rest/ships")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+        assertTrue("Курсор не отправлен для полной страницы размера по умолчанию.", cursor != null);
+
+        cursor = mockMvc.perform(get("/rest/ships?pageSize=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+        assertTrue("Курсор отправлен для последней неполной страницы.", cursor == null);
+    }
+
+    private List<ShipInfoTest> sortByOrder(ShipOrder order, List<ShipInfoTest> ships) {
+        if (order == ShipOrder.DATE) {
+            // TestsHelper compares dates through an int cast that overflows for far-apart years
+            ships.sort(Comparator.comparing(ship -> ship.prodDate));
+            return ships;
+        }
+        return testsHelper.getShipInfosByOrder(order, ships);
+    }
+
+    private List<ShipInfoTest> scroll(String url, int pageSize) throws Exception {
+        List<ShipInfoTest> result = new ArrayList<>();
+        String cursor = null;
+        while (true) {
+            String pageUrl = url + "&pageSize=" + pageSize + (cursor == null ? "" : "&cursor=" + cursor);
+            MockHttpServletResponse response = mockMvc.perform(get(pageUrl)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            List<ShipInfoTest> page = mapper.readValue(response.getContentAsString(), typeReference);
+            result.addAll(page);
+            cursor = response.getHeader(ShipController.NEXT_CURSOR_HEADER);
+            if (cursor == null) {
+                assertTrue("Курсор не отправлен для полной страницы.", page.size() < pageSize);
+                return result;
+            }
+        }
+    }
+}
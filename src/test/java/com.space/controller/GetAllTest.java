@@ -10,6 +10,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.List;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
@@ -217,4 +219,51 @@ public class GetAllTest extends AbstractTest {
 
         assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами after, before, minCrewSize и maxCrewSize.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test11
+    @Test
+    public void getAllWithZeroPageSize() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships?pageSize=0")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> actual = mapper.readValue(resultActions.andReturn().getResponse().getContentAsString(),
+                typeReference);
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с pageSize=0.",
+                Collections.emptyList(), actual);
+    }
+
+    //test12
+    @Test
+    public void getAllWithNegativePage() throws Exception {
+        mockMvc.perform(get("/rest/ships?pageNumber=-1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/rest/ships?pageSize=-3")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test13
+    @Test
+    public void getAllWithAfterBeforeInTheMiddleOfADay() throws Exception {
+        // ship 1 was produced on 01.01.2995; a bound at noon of that day must not be rounded to midnight
+        long noon = new SimpleDateFormat("yyyy-MM-dd HH:mm").parse("2995-01-01 12:00").getTime();
+
+        List<ShipInfoTest> afterNoon = mapper.readValue(mockMvc.perform(get("/rest/ships?pageSize=100&after=" + noon)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с after в середине дня.",
+                testsHelper.getShipInfosByAfter(noon, testsHelper.getAllShips()), afterNoon);
+
+        List<ShipInfoTest> beforeNoon = mapper.readValue(mockMvc.perform(get("/rest/ships?pageSize=100&before=" + noon)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с before в середине дня.",
+                testsHelper.getShipInfosByBefore(noon, testsHelper.getAllShips()), beforeNoon);
+    }
+}
@@ -0,0 +1,71 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImportShipTest extends AbstractTest {
+
+    private static final String INVALID_JSON =
+            "{\"name\": \"\", \"planet\": \"Earth\", \"shipType\": \"MILITARY\", \"prodDate\": 32998274577071, " +
+                    "\"speed\": 0.8, \"crewSize\": 14}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void importJsonArrayTest() throws Exception {
+        long before = getCount("");
+
+        JsonNode report = importShips(MediaType.APPLICATION_JSON_UTF8_VALUE,
+                "[" + TestsHelper.NORMAL_JSON + "," + INVALID_JSON + "," + TestsHelper.NORMAL_JSON + "]");
+
+        assertEquals("Не правильное количество полученных записей.", 3L, report.get("received").asLong());
+        assertEquals("Не правильное количество импортированных записей.", 2L, report.get("imported").asLong());
+        assertEquals("Не правильное количество ошибок.", 1L, report.get("failed").asLong());
+        assertEquals("Ошибка указывает не на ту запись.", 1L, report.get("errors").get(0).get("index").asLong());
+
+        assertEquals("Импортированные корабли не найдены.", before + 2, getCount(""));
+        assertEquals("Импортированные корабли не найдены.", 2L, getCount("?name=123456789"));
+    }
+
+    //test2
+    @Test
+    public void importNdjsonTest() throws Exception {
+        JsonNode report = importShips("application/x-ndjson",
+                TestsHelper.NORMAL_JSON + "\n" + TestsHelper.NORMAL_JSON + "\n");
+
+        assertEquals("Не правильное количество полученных записей.", 2L, report.get("received").asLong());
+        assertEquals("Не правильное количество импортированных записей.", 2L, report.get("imported").asLong());
+        assertEquals("Не правильное количество ошибок.", 0L, report.get("failed").asLong());
+
+        assertEquals("Импортированные корабли не найдены.", 2L, getCount("?name=123456789"));
+    }
+
+    //test3
+    @Test
+    public void importStopsAtMalformedJsonTest() throws Exception {
+        JsonNode report = importShips("application/x-ndjson",
+                TestsHelper.NORMAL_JSON + "\n{\"name\": ]\n" + TestsHelper.NORMAL_JSON);
+
+        assertEquals("Не правильное количество импортированных записей.", 1L, report.get("imported").asLong());
+        assertEquals("Не правильное количество ошибок.", 1L, report.get("failed").asLong());
+    }
+
+    private JsonNode importShips(String contentType, String body) throws Exception {
+        String report = mockMvc.perform(post("/rest/ships/import")
+                .contentType(contentType)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(report);
+    }
+}
@@ -0,0 +1,81 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void listRequestIsRecordedPerStage() throws Exception {
+        String before = getMetrics();
+
+        mockMvc.perform(get("/rest/ships?pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        String after = getMetrics();
+        assertEquals("GET /rest/ships не попал в метрики запросов.", 1D,
+                sample(after, "cosmoport_http_request_seconds_count{method=\"GET\",uri=\"/rest/ships\"}")
+                        - sample(before, "cosmoport_http_request_seconds_count{method=\"GET\",uri=\"/rest/ships\"}"));
+        assertEquals("GET /rest/ships не попал в корзину +Inf гистограммы запросов.", 1D,
+                sample(after, "cosmoport_http_request_seconds_bucket{method=\"GET\",uri=\"/rest/ships\",le=\"+Inf\"}")
+                        - sample(before, "cosmoport_http_request_seconds_bucket{method=\"GET\",uri=\"/rest/ships\",le=\"+Inf\"}"));
+        assertTrue("Корзины гистограммы запросов не накопительные.",
+                sample(after, "cosmoport_http_request_seconds_bucket{method=\"GET\",uri=\"/rest/ships\",le=\"0.01\"}")
+                        <= sample(after, "cosmoport_http_request_seconds_bucket{method=\"GET\",uri=\"/rest/ships\",le=\"10\"}"));
+        assertTrue("Запрос к репозиторию не попал в метрики этапов.",
+                sample(after, "cosmoport_stage_seconds_count{stage=\"fetch\"}")
+                        > sample(before, "cosmoport_stage_seconds_count{stage=\"fetch\"}"));
+        assertTrue("Сериализация ответа не попала в метрики этапов.",
+                sample(after, "cosmoport_stage_seconds_count{stage=\"serialize\"}")
+                        > sample(before, "cosmoport_stage_seconds_count{stage=\"serialize\"}"));
+        assertEquals("Число возвращённых строк в метриках не совпадает с размером страницы.", 5D,
+                sample(after, "cosmoport_rows_returned_total{source=\"database\"}")
+                        - sample(before, "cosmoport_rows_returned_total{source=\"database\"}"));
+    }
+
+    //test2
+    @Test
+    public void endpointIsLabelledByPattern() throws Exception {
+        mockMvc.perform(get("/rest/ships/100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+
+        String metrics = getMetrics();
+        assertTrue("Ответ 404 не учтён в метриках под шаблоном /rest/ships/{id}.",
+                sample(metrics, "cosmoport_http_responses_total{method=\"GET\",uri=\"/rest/ships/{id}\",status=\"404\"}") > 0);
+        assertTrue("Идентификатор корабля попал в метки метрик.", !metrics.contains("/rest/ships/100"));
+    }
+
+    //test3
+    @Test
+    public void slowQueriesAreNotPublishedByDefault() throws Exception {
+        mockMvc.perform(get("/rest/admin/slow-queries")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+    }
+
+    private String getMetrics() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue("GET /metrics возвращает не текстовый формат Prometheus.",
+                response.getContentType().startsWith("text/plain"));
+        return response.getContentAsString();
+    }
+
+    private static double sample(String metrics, String series) {
+        Matcher matcher = Pattern.compile("^" + Pattern.quote(series) + " (\\S+)$", Pattern.MULTILINE).matcher(metrics);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PatchShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void patchShipNotExistTest() throws Exception {
+        mockMvc.perform(patch("/rest/ships/415")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Patched\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test2
+    @Test
+    public void patchShipInvalidDataTest() throws Exception {
+        mockMvc.perform(patch("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\": 0}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patch("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void patchShipNameKeepsRatingTest() throws Exception {
+        ShipInfoTest before = testsHelper.getShipInfosById(5);
+
+        mockMvc.perform(patch("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Patched\"}"))
+                .andExpect(status().isNoContent());
+
+        ShipInfoTest expected = new ShipInfoTest(before.id, "Patched", before.planet, before.shipType, before.prodDate,
+                before.isUsed, before.speed, before.crewSize, before.rating);
+        assertEquals("PATCH /rest/ships/{id} должен менять только переданные поля", expected, getShip(5));
+    }
+
+    //test4
+    @Test
+    public void patchShipRecalculatesRatingTest() throws Exception {
+        for (long id = 1; id <= 40; id++) {
+            mockMvc.perform(patch("/rest/ships/" + id)
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{\"speed\": 0.37, \"prodDate\": 32556844329665}"))
+                    .andExpect(status().isNoContent());
+            ShipInfoTest patched = getShip(id);
+
+            // an empty regular update recalculates the rating in Java
+            String contentAsString = mockMvc.perform(post("/rest/ships/" + id)
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .accept(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{}"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            ShipInfoTest recalculated = mapper.readValue(contentAsString, ShipInfoTest.class);
+
+            assertEquals("PATCH /rest/ships/{id} пересчитывает рейтинг не правильно", recalculated, patched);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements a request may run; the second-level cache is empty at the start of each test.
+ */
+public class QueryBudgetTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getShipBudgetTest() throws Exception {
+        performWithinQueryBudget(1, get("/rest/ships/1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        // the ship is cached now
+        performWithinQueryBudget(0, get("/rest/ships/1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void getShipsPageBudgetTest() throws Exception {
+        performWithinQueryBudget(1, get("/rest/ships?planet=Jupiter&pageSize=20")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test3
+    @Test
+    public void getShipsCountBudgetTest() throws Exception {
+        performWithinQueryBudget(1, get("/rest/ships/count?planet=Jupiter")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test4
+    @Test
+    public void updateShipBudgetTest() throws Exception {
+        // one read of the ship and its versioned UPDATE
+        performWithinQueryBudget(2, post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+    }
+
+    //test5
+    @Test
+    public void deleteShipBudgetTest() throws Exception {
+        // the DELETE alone tells whether the ship existed
+        performWithinQueryBudget(1, delete("/rest/ships/1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test6
+    @Test
+    public void deleteMissingShipBudgetTest() throws Exception {
+        performWithinQueryBudget(1, delete("/rest/ships/426")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,105 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.dto.RatingRecalculationStatus;
+import com.space.service.RatingRecalculationJob;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "rating.job.chunk-size=7")
+public class RatingRecalculationTest extends AbstractTest {
+
+    private static final int SHIPS = 40;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void recalculatesEveryRatingTest() throws Exception {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("UPDATE ship SET rating = 0");
+
+        RatingRecalculationJob job = context.getBean(RatingRecalculationJob.class);
+        assertTrue("Задача пересчёта не запустилась.", job.run());
+
+        RatingRecalculationStatus status = job.getStatus();
+        assertEquals("Задача пересчёта не завершилась.", RatingRecalculationStatus.State.FINISHED, status.getState());
+        assertEquals("Задача пересчёта прочитала не все корабли.", (long) SHIPS, status.getRowsScanned());
+        assertEquals("Задача пересчёта обновила не все корабли.", (long) SHIPS, status.getRowsUpdated());
+        for (long id = 1; id <= SHIPS; id++) {
+            assertRatingIsCalculated(id);
+        }
+    }
+
+    //test2
+    @Test
+    public void resumesFromCheckpointTest() throws Exception {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("UPDATE ship SET rating = 0");
+        jdbcTemplate.update("INSERT INTO rating_recalculation(current_year, last_id, rows_done, finished) " +
+                "VALUES (3019, 20, 20, FALSE)");
+
+        RatingRecalculationJob job = context.getBean(RatingRecalculationJob.class);
+        job.run();
+
+        RatingRecalculationStatus status = job.getStatus();
+        assertEquals("Задача пересчёта не продолжила с контрольной точки.", (long) SHIPS, status.getRowsScanned());
+        assertEquals("Задача пересчёта обновила корабли до контрольной точки.", (long) SHIPS - 20, status.getRowsUpdated());
+        assertEquals("Рейтинг до контрольной точки пересчитан.", 0.0,
+                jdbcTemplate.queryForObject("SELECT rating FROM ship WHERE id = 20", Double.class));
+        for (long id = 21; id <= SHIPS; id++) {
+            assertRatingIsCalculated(id);
+        }
+    }
+
+    //test3
+    @Test
+    public void startAndPollTest() throws Exception {
+        mockMvc.perform(post("/rest/admin/ratings/recalculation")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isAccepted());
+
+        String state = "RUNNING";
+        for (int i = 0; i < 100 && state.equals("RUNNING"); i++) {
+            Thread.sleep(50);
+            String content = mockMvc.perform(get("/rest/admin/ratings/recalculation")
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            state = mapper.readTree(content).get("state").asText();
+        }
+        assertEquals("Задача пересчёта не завершилась.", "FINISHED", state);
+    }
+
+    /**
+     * An empty update recalculates the rating of one ship in Java; the job must have
+     * stored the same value.
+     */
+    private void assertRatingIsCalculated(long id) throws Exception {
+        JsonNode stored = readShip(mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        JsonNode recalculated = readShip(mockMvc.perform(post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Рейтинг корабля " + id + " пересчитан не правильно.",
+                recalculated.get("rating").asDouble(), stored.get("rating").asDouble());
+    }
+
+    private JsonNode readShip(String content) throws Exception {
+        return mapper.readTree(content);
+    }
+}
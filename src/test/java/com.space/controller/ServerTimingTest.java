@@ -0,0 +1,59 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "diagnostics.server-timing.enabled=true")
+public class ServerTimingTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getShipServerTimingTest() throws Exception {
+        String first = serverTiming(get("/rest/ships/1"));
+        assertTrue("Server-Timing не содержит SQL-запрос чтения корабля: " + first,
+                first.contains("db;dur=") && first.contains("desc=\"1 statements\""));
+        assertTrue("Server-Timing не содержит загрузку корабля Hibernate: " + first,
+                first.contains("hibernate-load;desc=\"1\""));
+        assertTrue("Server-Timing не содержит промах кэша второго уровня: " + first,
+                first.contains("l2c-miss;desc=\"1\""));
+
+        String second = serverTiming(get("/rest/ships/1"));
+        assertTrue("Повторное чтение корабля не попало в кэш второго уровня: " + second,
+                second.contains("desc=\"0 statements\"") && second.contains("l2c-hit;desc=\"1\""));
+    }
+
+    //test2
+    @Test
+    public void getShipsServerTimingTest() throws Exception {
+        String timing = serverTiming(get("/rest/ships?pageSize=20"));
+        assertTrue("Server-Timing не содержит запрос страницы Hibernate: " + timing,
+                timing.contains("hibernate-query;desc=\"1\"") && timing.contains("hibernate-load;desc=\"20\""));
+    }
+
+    //test3
+    @Test
+    public void responseWithoutBodyServerTimingTest() throws Exception {
+        String timing = mockMvc.perform(delete("/rest/ships/426")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound())
+                .andReturn().getResponse().getHeader("Server-Timing");
+        assertTrue("Ответ без тела не содержит Server-Timing.",
+                timing != null && timing.contains("desc=\"1 statements\""));
+    }
+
+    private String serverTiming(MockHttpServletRequestBuilder request) throws Exception {
+        String timing = mockMvc.perform(request
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Server-Timing");
+        assertTrue("Ответ не содержит заголовок Server-Timing.", timing != null);
+        return timing;
+    }
+}
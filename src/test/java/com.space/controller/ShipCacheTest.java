@@ -0,0 +1,114 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the cache hit counters come from Hibernate statistics, which only diagnostic mode turns on
+@TestPropertySource(properties = "diagnostics.server-timing.enabled=true")
+public class ShipCacheTest extends AbstractTest {
+
+    private static final String SHIP_REGION = "com.space.model.Ship";
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void repeatedGetIsServedFromCache() throws Exception {
+        long hitsBefore = getRegionCounter(SHIP_REGION, "hits");
+
+        getShip(5);
+        getShip(5);
+
+        assertTrue("Повторный GET /rest/ships/{id} не попадает в кэш второго уровня.",
+                getRegionCounter(SHIP_REGION, "hits") > hitsBefore);
+    }
+
+    //test2
+    @Test
+    public void updateInvalidatesCachedShip() throws Exception {
+        getShip(5);
+
+        mockMvc.perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Renamed\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("После обновления GET /rest/ships/{id} возвращает устаревший корабль из кэша.",
+                "Renamed", getShip(5).name);
+    }
+
+    //test3
+    @Test
+    public void deleteInvalidatesCachedShipAndQueries() throws Exception {
+        getShip(5);
+        long countBefore = getCount("?name=Excalibur");
+
+        mockMvc.perform(delete("/rest/ships/5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/ships/5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+        assertEquals("Счётчик до удаления не правильный.", 1L, countBefore);
+        assertEquals("После удаления GET /rest/ships/count возвращает устаревший результат из кэша запросов.",
+                0L, getCount("?name=Excalibur"));
+    }
+
+    //test4
+    @Test
+    public void patchInvalidatesCachedQueries() throws Exception {
+        long countBefore = getCount("?name=Patched");
+
+        mockMvc.perform(patch("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Patched\"}"))
+                .andExpect(status().isNoContent());
+
+        assertEquals("Счётчик до обновления не правильный.", 0L, countBefore);
+        assertEquals("После PATCH GET /rest/ships/count возвращает устаревший результат из кэша запросов.",
+                1L, getCount("?name=Patched"));
+    }
+
+    //test5
+    @Test
+    public void largePagesAreNotCached() throws Exception {
+        long putsBefore = getCacheMetrics().path("queries").path("puts").asLong();
+        mockMvc.perform(get("/rest/ships?pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertEquals("Большая страница кораблей попала в кэш запросов.",
+                putsBefore, getCacheMetrics().path("queries").path("puts").asLong());
+
+        mockMvc.perform(get("/rest/ships?pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertTrue("Небольшая страница кораблей не попала в кэш запросов.",
+                getCacheMetrics().path("queries").path("puts").asLong() > putsBefore);
+    }
+
+    private long getRegionCounter(String region, String counter) throws Exception {
+        return getCacheMetrics().path("regions").path(region).path(counter).asLong();
+    }
+
+    private JsonNode getCacheMetrics() throws Exception {
+        String content = mockMvc.perform(get("/rest/metrics/cache")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
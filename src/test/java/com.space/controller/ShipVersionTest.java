@@ -0,0 +1,97 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipVersionTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void updateWithCurrentETagTest() throws Exception {
+        String eTag = getETag(5);
+
+        mockMvc.perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .content("{\"name\": \"Versioned\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        assertEquals("Версия корабля не изменилась после обновления.", "\"1\"", getETag(5));
+    }
+
+    //test2
+    @Test
+    public void updateWithStaleETagTest() throws Exception {
+        String eTag = getETag(5);
+        mockMvc.perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\": 42}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .content("{\"name\": \"Versioned\"}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(patch("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .content("{\"name\": \"Versioned\"}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(delete("/rest/ships/5")
+                .header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isConflict());
+    }
+
+    //test3
+    @Test
+    public void patchAndDeleteWithCurrentETagTest() throws Exception {
+        mockMvc.perform(patch("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_MATCH, getETag(5))
+                .content("{\"speed\": 0.5}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(delete("/rest/ships/5")
+                .header(HttpHeaders.IF_MATCH, getETag(5)))
+                .andExpect(status().isOk());
+    }
+
+    //test4
+    @Test
+    public void conditionalWriteOfMissingShipTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships/415")
+                .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    //test5
+    @Test
+    public void malformedIfMatchTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships/5")
+                .header(HttpHeaders.IF_MATCH, "version-one"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String getETag(long id) throws Exception {
+        return mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,73 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every statement counts as slow here, so each one lands in the slow query log.
+ */
+@TestPropertySource(properties = {"sql.slow-threshold-ms=0", "sql.slow-log-binds=true",
+        "diagnostics.slow-queries.enabled=true"})
+public class SlowQueryTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void pageQueryIsTracedWithRows() throws Exception {
+        mockMvc.perform(get("/rest/ships?planet=Jupiter&pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        JsonNode statement = find(getJson("/rest/metrics/statements"), "planet like");
+        assertTrue("Запрос страницы кораблей не попал в статистику SQL.", statement != null);
+        assertTrue("В статистике SQL не учтены параметры запроса страницы.", statement.get("binds").asInt() >= 1);
+        assertTrue("В статистике SQL не учтены строки запроса страницы.", statement.get("rows").asLong() >= 5);
+    }
+
+    //test2
+    @Test
+    public void slowQueryIsLoggedWithPlan() throws Exception {
+        mockMvc.perform(get("/rest/ships?planet=Mars&pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        // the plan is requested in the background
+        for (int attempt = 0; attempt < 50; attempt++) {
+            for (JsonNode slow : getJson("/rest/admin/slow-queries")) {
+                if (slow.get("sql").asText().contains("planet like")
+                        && slow.get("parameters").toString().contains("%Mars%")
+                        && !slow.get("plan").isNull()) {
+                    assertTrue("План медленного запроса не получен через EXPLAIN.",
+                            slow.get("plan").toString().toUpperCase().contains("SHIP"));
+                    return;
+                }
+            }
+            Thread.sleep(100);
+        }
+        fail("Медленный запрос страницы кораблей не попал в журнал медленных запросов вместе с планом.");
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        String body = mockMvc.perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(body);
+    }
+
+    private static JsonNode find(JsonNode statements, String sqlPart) {
+        for (JsonNode statement : statements) {
+            if (statement.get("sql").asText().contains(sqlPart)) return statement;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,113 @@
+package com.space.metrics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class LatencyHistogramTest {
+
+    //test1
+    @Test
+    public void smallValuesHaveTheirOwnBucket() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals("Значение меньше 32 попало не в свою корзину.", (int) value, LatencyHistogram.indexOf(value));
+            assertEquals("Верхняя граница корзины значения меньше 32 не правильная.",
+                    value, LatencyHistogram.highestValueOf((int) value));
+        }
+    }
+
+    //test2
+    @Test
+    public void bucketEdges() {
+        assertEquals("Не правильная корзина для 32.", 32, LatencyHistogram.indexOf(32));
+        assertEquals("Не правильная граница корзины для 32.", 32L, LatencyHistogram.highestValueOf(32));
+        assertEquals("Не правильная корзина для 63.", 63, LatencyHistogram.indexOf(63));
+        assertEquals("Не правильная корзина для 64.", 64, LatencyHistogram.indexOf(64));
+        assertEquals("64 и 65 должны попадать в одну корзину.", 64, LatencyHistogram.indexOf(65));
+        assertEquals("Не правильная граница корзины для 64.", 65L, LatencyHistogram.highestValueOf(64));
+
+        int last = LatencyHistogram.indexOf(Long.MAX_VALUE);
+        assertEquals("Long.MAX_VALUE попал не в последнюю корзину.", (64 - 5) * 32 - 1, last);
+        assertEquals("Не правильная граница последней корзины.", Long.MAX_VALUE, LatencyHistogram.highestValueOf(last));
+    }
+
+    //test3
+    @Test
+    public void powersOfTwoMinusOneCloseTheirBucket() {
+        for (int k = 6; k < 63; k++) {
+            long value = (1L << k) - 1;
+            int index = LatencyHistogram.indexOf(value);
+            assertEquals("2^" + k + "-1 не является верхней границей своей корзины.",
+                    value, LatencyHistogram.highestValueOf(index));
+            assertEquals("2^" + k + " не открывает следующую корзину.", index + 1, LatencyHistogram.indexOf(value + 1));
+        }
+    }
+
+    //test4
+    @Test
+    public void bucketsCoverEveryValueWithinRelativeError() {
+        Random random = new Random(20191018);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestValueOf(index);
+            long lowest = index == 0 ? 0 : LatencyHistogram.highestValueOf(index - 1) + 1;
+            assertTrue("Значение " + value + " вне своей корзины.", lowest <= value && value <= highest);
+            assertTrue("Ошибка корзины для " + value + " больше 2^-5.", highest - value <= value / 32);
+        }
+    }
+
+    //test5
+    @Test
+    public void percentileRanks() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals("Пустая гистограмма должна возвращать 0.", 0L, histogram.getValueAtPercentile(50));
+
+        for (long value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+
+        assertEquals("Не правильное количество значений.", 11L, histogram.getCount());
+        assertEquals("Отрицательное значение должно записываться как 0.", 0L, histogram.getValueAtPercentile(0));
+        assertEquals("Не правильный 9-й перцентиль.", 0L, histogram.getValueAtPercentile(9));
+        assertEquals("Не правильный 10-й перцентиль.", 1L, histogram.getValueAtPercentile(10));
+        assertEquals("Не правильная медиана.", 5L, histogram.getValueAtPercentile(50));
+        assertEquals("Не правильный 91-й перцентиль.", 10L, histogram.getValueAtPercentile(91));
+        assertEquals("Не правильный 100-й перцентиль.", 10L, histogram.getValueAtPercentile(100));
+        assertEquals("Не правильный максимум.", 10L, histogram.getMax());
+    }
+
+    //test6
+    @Test
+    public void percentilesReportTheUpperBoundOfTheirBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals("Медиана должна быть верхней границей корзины 1000.", 1007L, histogram.getValueAtPercentile(50));
+        assertEquals("Максимум должен быть Long.MAX_VALUE.", Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        assertEquals("Не правильный максимум.", Long.MAX_VALUE, histogram.getMax());
+    }
+
+    //test7
+    @Test
+    public void cumulativeCountsForPrometheus() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5);
+        histogram.record(31);
+        histogram.record(1000);
+        histogram.record(5000);
+
+        long[] cumulative = histogram.getCumulativeCounts(new long[]{0, 31, 1007, 1_000_000});
+        assertEquals("Не правильное количество корзин.", 5, cumulative.length);
+        assertEquals("Не правильная накопленная сумма для 0.", 0L, cumulative[0]);
+        assertEquals("Не правильная накопленная сумма для 31.", 2L, cumulative[1]);
+        assertEquals("Корзина 1000 заканчивается на 1007 и должна войти целиком.", 3L, cumulative[2]);
+        assertEquals("Не правильная накопленная сумма для 1000000.", 4L, cumulative[3]);
+        assertEquals("Последний элемент должен быть общим количеством.", 4L, cumulative[4]);
+    }
+}
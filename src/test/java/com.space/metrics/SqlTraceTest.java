@@ -0,0 +1,45 @@
+package com.space.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class SqlTraceTest {
+
+    private static final String SQL = "SELECT * FROM ship WHERE planet LIKE ? AND crewSize > ?";
+
+    //test1
+    @Test
+    public void bindValuesAreMaskedByDefault() {
+        SqlTrace trace = new SqlTrace(0, 10, false);
+        trace.record(SQL, new Object[]{"%Mars%", 100, null}, 3, 1, 1);
+
+        assertEquals("Значения параметров медленного запроса не скрыты.",
+                Arrays.asList("String(6)", "Integer", "null"), parameters(trace));
+        trace.destroy();
+    }
+
+    //test2
+    @Test
+    public void shownBindValuesAreTruncated() {
+        char[] longText = new char[150];
+        Arrays.fill(longText, 'x');
+        SqlTrace trace = new SqlTrace(0, 10, true);
+        trace.record(SQL, new Object[]{"%Mars%", new String(longText)}, 2, 1, 1);
+
+        List<String> parameters = parameters(trace);
+        assertEquals("Значение параметра медленного запроса не показано.", "%Mars%", parameters.get(0));
+        assertEquals("Длинное значение параметра не обрезано.", 103, parameters.get(1).length());
+        trace.destroy();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> parameters(SqlTrace trace) {
+        Map<String, Object> slow = trace.getSlowStatements().get(0);
+        return (List<String>) slow.get("parameters");
+    }
+}
@@ -0,0 +1,56 @@
+package com.space.model;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class RatingCalculatorTest {
+
+    private static final RatingCalculator CALCULATOR = new RatingCalculator(3019);
+
+    /**
+     * The rating as ShipService computed it before RatingCalculator.
+     */
+    private static Double calendarRating(Double speed, boolean isUsed, Date prodDate) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(prodDate);
+        Integer prodYear = calendar.get(Calendar.YEAR);
+        Double k = isUsed ? 0.5 : 1;
+        Double rating = 80 * speed * k / (3019 - prodYear + 1);
+        return Math.round(rating * 100) / 100D;
+    }
+
+    //test1
+    @Test
+    public void ratingIsBitIdenticalToCalendarRating() {
+        Random random = new Random(20191018);
+        long from = LocalDate.of(2600, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long to = LocalDate.of(3019, 12, 31).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (int i = 0; i < 1_000_000; i++) {
+            long prodDate = from + (long) (random.nextDouble() * (to - from));
+            double speed = (1 + random.nextInt(99)) / 100D;
+            boolean isUsed = random.nextBoolean();
+
+            double expected = calendarRating(speed, isUsed, new Date(prodDate));
+            double actual = CALCULATOR.rating(speed, isUsed, prodDate);
+            assertEquals("Рейтинг отличается для даты " + prodDate + " и скорости " + speed,
+                    Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+        }
+    }
+
+    //test2
+    @Test
+    public void yearChangesAtMidnightOfJanuaryFirst() {
+        for (int year = RatingCalculator.FIRST_TABLE_YEAR - 1; year <= RatingCalculator.LAST_TABLE_YEAR + 1; year++) {
+            long yearStart = LocalDate.of(year, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            assertEquals("Не правильный год для начала года", year, RatingCalculator.yearOf(yearStart));
+            assertEquals("Не правильный год для конца предыдущего года", year - 1, RatingCalculator.yearOf(yearStart - 1));
+        }
+    }
+}
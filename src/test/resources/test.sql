@@ -1,4 +1,5 @@
 DROP TABLE IF EXISTS ship;
+DROP TABLE IF EXISTS rating_recalculation;
 
 CREATE TABLE ship
 (
@@ -11,9 +12,24 @@ CREATE TABLE ship
     speed    DOUBLE      NULL,
     crewSize INT(4)      NULL,
     rating   DOUBLE      NULL,
+    version  BIGINT(20)  NOT NULL DEFAULT 0,
     PRIMARY KEY (id)
 );
 
+CREATE INDEX idx_ship_speed ON ship (speed);
+CREATE INDEX idx_ship_date ON ship (prodDate);
+CREATE INDEX idx_ship_rating ON ship (rating);
+CREATE INDEX idx_ship_crew_size ON ship (crewSize);
+
+CREATE TABLE rating_recalculation
+(
+    current_year INT(4)     NOT NULL,
+    last_id      BIGINT(20) NOT NULL,
+    rows_done    BIGINT(20) NOT NULL,
+    finished     BIT(1)     NOT NULL,
+    PRIMARY KEY (current_year)
+);
+
 INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating)
 VALUES ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
      , ('Daedalus', 'Jupiter', 'MERCHANT', '3001-01-01', true, 0.94, 1619, 1.98)